@@ -1,8 +1,12 @@
 package com.brentvatne.common.api
 
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetArray
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetBool
 import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetDouble
 import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetFloat
 import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetInt
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetMap
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
 import com.facebook.react.bridge.ReadableMap
 
 /**
@@ -12,6 +16,7 @@ import com.facebook.react.bridge.ReadableMap
  */
 class BufferConfig {
     var cacheSize = BufferConfigPropUnsetInt
+    var cacheNamespace: String? = null
     var minBufferMs = BufferConfigPropUnsetInt
     var maxBufferMs = BufferConfigPropUnsetInt
     var bufferForPlaybackMs = BufferConfigPropUnsetInt
@@ -21,14 +26,25 @@ class BufferConfig {
     var minBackBufferMemoryReservePercent = BufferConfigPropUnsetDouble
     var minBufferMemoryReservePercent = BufferConfigPropUnsetDouble
     var initialBitrate = BufferConfigPropUnsetInt
+    var manifestCacheTtlMs = BufferConfigPropUnsetInt
+    var preferCachedTracks = false
+    var cachedTrackBitrateTolerance = BufferConfigPropUnsetDouble
+    var cachePriority: String? = null
+    var abrMode: String? = null
+    var abrLowBufferMs = BufferConfigPropUnsetInt
+    var abrHighBufferMs = BufferConfigPropUnsetInt
+    var startupMode: String? = null
+    var fastStartDurationMs = BufferConfigPropUnsetInt
 
     var live: Live = Live()
+    var cacheKey: CacheKey = CacheKey()
 
     /** return true if this and src are equals  */
     override fun equals(other: Any?): Boolean {
         if (other == null || other !is BufferConfig) return false
         return (
             cacheSize == other.cacheSize &&
+                cacheNamespace == other.cacheNamespace &&
                 minBufferMs == other.minBufferMs &&
                 maxBufferMs == other.maxBufferMs &&
                 bufferForPlaybackMs == other.bufferForPlaybackMs &&
@@ -38,10 +54,74 @@ class BufferConfig {
                 minBackBufferMemoryReservePercent == other.minBackBufferMemoryReservePercent &&
                 minBufferMemoryReservePercent == other.minBufferMemoryReservePercent &&
                 initialBitrate == other.initialBitrate &&
-                live == other.live
+                manifestCacheTtlMs == other.manifestCacheTtlMs &&
+                preferCachedTracks == other.preferCachedTracks &&
+                cachedTrackBitrateTolerance == other.cachedTrackBitrateTolerance &&
+                cachePriority == other.cachePriority &&
+                abrMode == other.abrMode &&
+                abrLowBufferMs == other.abrLowBufferMs &&
+                abrHighBufferMs == other.abrHighBufferMs &&
+                startupMode == other.startupMode &&
+                fastStartDurationMs == other.fastStartDurationMs &&
+                live == other.live &&
+                cacheKey == other.cacheKey
             )
     }
 
+    /**
+     * return true if a player built with this config can play a source with src:
+     * the buffer durations, the heap limits and the live config require a new player when they change,
+     * the other fields are applied to each source.
+     */
+    fun isPlayerConfigEqual(src: BufferConfig): Boolean =
+        minBufferMs == src.minBufferMs &&
+            maxBufferMs == src.maxBufferMs &&
+            bufferForPlaybackMs == src.bufferForPlaybackMs &&
+            bufferForPlaybackAfterRebufferMs == src.bufferForPlaybackAfterRebufferMs &&
+            backBufferDurationMs == src.backBufferDurationMs &&
+            maxHeapAllocationPercent == src.maxHeapAllocationPercent &&
+            minBackBufferMemoryReservePercent == src.minBackBufferMemoryReservePercent &&
+            minBufferMemoryReservePercent == src.minBufferMemoryReservePercent &&
+            live == src.live
+
+    /** return true if the first media of the source is loaded at the lowest bitrate, to start playback as soon as possible */
+    fun isFastStartup(): Boolean = startupMode == STARTUP_MODE_FAST
+
+    /**
+     * Normalization of the uri used as cache key, so that urls with session tokens share cache entries.
+     * regex takes precedence over stripQueryParams.
+     */
+    class CacheKey {
+        /** Query parameters removed from the uri */
+        var stripQueryParams: List<String> = emptyList()
+
+        /** Regex applied on the uri, the first capture group (or the whole match) is used as key */
+        var regex: String? = null
+
+        fun isSet(): Boolean = stripQueryParams.isNotEmpty() || !regex.isNullOrEmpty()
+
+        override fun equals(other: Any?): Boolean {
+            if (other == null || other !is CacheKey) return false
+            return stripQueryParams == other.stripQueryParams && regex == other.regex
+        }
+
+        companion object {
+            private const val PROP_BUFFER_CONFIG_CACHE_KEY_STRIP_QUERY_PARAMS = "stripQueryParams"
+            private const val PROP_BUFFER_CONFIG_CACHE_KEY_REGEX = "regex"
+
+            @JvmStatic
+            fun parse(src: ReadableMap?): CacheKey {
+                val cacheKey = CacheKey()
+                val params = safeGetArray(src, PROP_BUFFER_CONFIG_CACHE_KEY_STRIP_QUERY_PARAMS)
+                if (params != null) {
+                    cacheKey.stripQueryParams = (0 until params.size()).mapNotNull { params.getString(it) }
+                }
+                cacheKey.regex = safeGetString(src, PROP_BUFFER_CONFIG_CACHE_KEY_REGEX, null)
+                return cacheKey
+            }
+        }
+    }
+
     class Live {
         var maxPlaybackSpeed: Float = BufferConfigPropUnsetDouble.toFloat()
         var minPlaybackSpeed: Float = BufferConfigPropUnsetDouble.toFloat()
@@ -83,8 +163,10 @@ class BufferConfig {
     companion object {
         val BufferConfigPropUnsetInt = -1
         val BufferConfigPropUnsetDouble = -1.0
+        const val STARTUP_MODE_FAST = "fast"
 
         private const val PROP_BUFFER_CONFIG_CACHE_SIZE = "cacheSizeMB"
+        private const val PROP_BUFFER_CONFIG_CACHE_NAMESPACE = "cacheNamespace"
         private const val PROP_BUFFER_CONFIG_MIN_BUFFER_MS = "minBufferMs"
         private const val PROP_BUFFER_CONFIG_MAX_BUFFER_MS = "maxBufferMs"
         private const val PROP_BUFFER_CONFIG_BUFFER_FOR_PLAYBACK_MS = "bufferForPlaybackMs"
@@ -94,7 +176,17 @@ class BufferConfig {
         private const val PROP_BUFFER_CONFIG_MIN_BUFFER_MEMORY_RESERVE_PERCENT = "minBufferMemoryReservePercent"
         private const val PROP_BUFFER_CONFIG_BACK_BUFFER_DURATION_MS = "backBufferDurationMs"
         private const val PROP_BUFFER_CONFIG_INITIAL_BITRATE = "initialBitrate"
+        private const val PROP_BUFFER_CONFIG_MANIFEST_CACHE_TTL_MS = "manifestCacheTtlMs"
+        private const val PROP_BUFFER_CONFIG_PREFER_CACHED_TRACKS = "preferCachedTracks"
+        private const val PROP_BUFFER_CONFIG_CACHED_TRACK_BITRATE_TOLERANCE = "cachedTrackBitrateTolerance"
+        private const val PROP_BUFFER_CONFIG_CACHE_PRIORITY = "cachePriority"
+        private const val PROP_BUFFER_CONFIG_ABR_MODE = "abrMode"
+        private const val PROP_BUFFER_CONFIG_ABR_LOW_BUFFER_MS = "abrLowBufferMs"
+        private const val PROP_BUFFER_CONFIG_ABR_HIGH_BUFFER_MS = "abrHighBufferMs"
+        private const val PROP_BUFFER_CONFIG_STARTUP_MODE = "startupMode"
+        private const val PROP_BUFFER_CONFIG_FAST_START_DURATION_MS = "fastStartDurationMs"
         private const val PROP_BUFFER_CONFIG_LIVE = "live"
+        private const val PROP_BUFFER_CONFIG_CACHE_KEY = "cacheKey"
 
         @JvmStatic
         fun parse(src: ReadableMap?): BufferConfig {
@@ -102,6 +194,7 @@ class BufferConfig {
 
             if (src != null) {
                 bufferConfig.cacheSize = safeGetInt(src, PROP_BUFFER_CONFIG_CACHE_SIZE, BufferConfigPropUnsetInt)
+                bufferConfig.cacheNamespace = safeGetString(src, PROP_BUFFER_CONFIG_CACHE_NAMESPACE, null)
                 bufferConfig.minBufferMs = safeGetInt(src, PROP_BUFFER_CONFIG_MIN_BUFFER_MS, BufferConfigPropUnsetInt)
                 bufferConfig.maxBufferMs = safeGetInt(src, PROP_BUFFER_CONFIG_MAX_BUFFER_MS, BufferConfigPropUnsetInt)
                 bufferConfig.bufferForPlaybackMs = safeGetInt(src, PROP_BUFFER_CONFIG_BUFFER_FOR_PLAYBACK_MS, BufferConfigPropUnsetInt)
@@ -122,7 +215,18 @@ class BufferConfig {
                     )
                 bufferConfig.backBufferDurationMs = safeGetInt(src, PROP_BUFFER_CONFIG_BACK_BUFFER_DURATION_MS, BufferConfigPropUnsetInt)
                 bufferConfig.initialBitrate = safeGetInt(src, PROP_BUFFER_CONFIG_INITIAL_BITRATE, BufferConfigPropUnsetInt)
+                bufferConfig.manifestCacheTtlMs = safeGetInt(src, PROP_BUFFER_CONFIG_MANIFEST_CACHE_TTL_MS, BufferConfigPropUnsetInt)
+                bufferConfig.preferCachedTracks = safeGetBool(src, PROP_BUFFER_CONFIG_PREFER_CACHED_TRACKS, false)
+                bufferConfig.cachedTrackBitrateTolerance =
+                    safeGetDouble(src, PROP_BUFFER_CONFIG_CACHED_TRACK_BITRATE_TOLERANCE, BufferConfigPropUnsetDouble)
+                bufferConfig.cachePriority = safeGetString(src, PROP_BUFFER_CONFIG_CACHE_PRIORITY, null)
+                bufferConfig.abrMode = safeGetString(src, PROP_BUFFER_CONFIG_ABR_MODE, null)
+                bufferConfig.abrLowBufferMs = safeGetInt(src, PROP_BUFFER_CONFIG_ABR_LOW_BUFFER_MS, BufferConfigPropUnsetInt)
+                bufferConfig.abrHighBufferMs = safeGetInt(src, PROP_BUFFER_CONFIG_ABR_HIGH_BUFFER_MS, BufferConfigPropUnsetInt)
+                bufferConfig.startupMode = safeGetString(src, PROP_BUFFER_CONFIG_STARTUP_MODE, null)
+                bufferConfig.fastStartDurationMs = safeGetInt(src, PROP_BUFFER_CONFIG_FAST_START_DURATION_MS, BufferConfigPropUnsetInt)
                 bufferConfig.live = Live.parse(src.getMap(PROP_BUFFER_CONFIG_LIVE))
+                bufferConfig.cacheKey = CacheKey.parse(safeGetMap(src, PROP_BUFFER_CONFIG_CACHE_KEY))
             }
             return bufferConfig
         }
@@ -25,7 +25,12 @@ class BufferingStrategy {
         /**
          * use default strategy but pause loading when available memory is low
          */
-        DependingOnMemory
+        DependingOnMemory,
+
+        /**
+         * move the buffer target between min and max buffer with the throughput, its stability and the network metering
+         */
+        DependingOnNetwork
     }
 
     companion object {
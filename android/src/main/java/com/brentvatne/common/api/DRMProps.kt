@@ -36,12 +36,24 @@ class DRMProps {
      */
     var multiDrm: Boolean = false
 
+    /**
+     * Content identifier, used as key of the stored offline license
+     */
+    var contentId: String? = null
+
+    /**
+     * Flag to store the license and play offline with it next time, Widevine and DASH only
+     */
+    var offlineLicense: Boolean = false
+
     /** return true if this and src are equals  */
     override fun equals(other: Any?): Boolean {
         if (other == null || other !is DRMProps) return false
         return drmType == other.drmType &&
             drmLicenseServer == other.drmLicenseServer &&
             multiDrm == other.multiDrm &&
+            contentId == other.contentId &&
+            offlineLicense == other.offlineLicense &&
             drmLicenseHeader.contentDeepEquals(other.drmLicenseHeader) // drmLicenseHeader is never null
     }
 
@@ -52,6 +64,8 @@ class DRMProps {
         private const val PROP_DRM_HEADERS_KEY = "key"
         private const val PROP_DRM_HEADERS_VALUE = "value"
         private const val PROP_DRM_MULTI_DRM = "multiDrm"
+        private const val PROP_DRM_CONTENT_ID = "contentId"
+        private const val PROP_DRM_OFFLINE_LICENSE = "offlineLicense"
 
         /** parse the source ReadableMap received from app */
         @JvmStatic
@@ -62,6 +76,8 @@ class DRMProps {
                 drm.drmType = safeGetString(src, PROP_DRM_TYPE)
                 drm.drmLicenseServer = safeGetString(src, PROP_DRM_LICENSE_SERVER)
                 drm.multiDrm = safeGetBool(src, PROP_DRM_MULTI_DRM, false)
+                drm.contentId = safeGetString(src, PROP_DRM_CONTENT_ID)
+                drm.offlineLicense = safeGetBool(src, PROP_DRM_OFFLINE_LICENSE, false)
                 val drmHeadersArray = safeGetArray(src, PROP_DRM_HEADERS)
                 if (drm.drmType != null && drm.drmLicenseServer != null) {
                     if (drmHeadersArray != null) {
@@ -0,0 +1,59 @@
+package com.brentvatne.common.api
+
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetArray
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetInt
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
+import com.facebook.react.bridge.ReadableMap
+
+/**
+ * Class representing download options for host.
+ * Only generic code here, no reference to the player.
+ */
+class DownloadOptions {
+    /** Download identifier, the source uri if not set */
+    var id: String? = null
+
+    /** Video renditions above this bitrate are not downloaded */
+    var maxVideoBitrate: Int = Int.MAX_VALUE
+
+    /** Video renditions above this height are not downloaded */
+    var maxVideoHeight: Int = Int.MAX_VALUE
+
+    /** Audio languages to download in addition to the default audio track */
+    var audioLanguages: List<String> = emptyList()
+
+    /** Text languages to download */
+    var textLanguages: List<String> = emptyList()
+
+    companion object {
+        private const val PROP_DOWNLOAD_ID = "id"
+        private const val PROP_DOWNLOAD_MAX_VIDEO_BITRATE = "maxVideoBitrate"
+        private const val PROP_DOWNLOAD_MAX_VIDEO_HEIGHT = "maxVideoHeight"
+        private const val PROP_DOWNLOAD_AUDIO_LANGUAGES = "audioLanguages"
+        private const val PROP_DOWNLOAD_TEXT_LANGUAGES = "textLanguages"
+
+        @JvmStatic
+        fun parse(src: ReadableMap?): DownloadOptions {
+            val options = DownloadOptions()
+            if (src != null) {
+                options.id = safeGetString(src, PROP_DOWNLOAD_ID, null)
+                val maxVideoBitrate = safeGetInt(src, PROP_DOWNLOAD_MAX_VIDEO_BITRATE, 0)
+                if (maxVideoBitrate > 0) {
+                    options.maxVideoBitrate = maxVideoBitrate
+                }
+                val maxVideoHeight = safeGetInt(src, PROP_DOWNLOAD_MAX_VIDEO_HEIGHT, 0)
+                if (maxVideoHeight > 0) {
+                    options.maxVideoHeight = maxVideoHeight
+                }
+                options.audioLanguages = parseStrings(src, PROP_DOWNLOAD_AUDIO_LANGUAGES)
+                options.textLanguages = parseStrings(src, PROP_DOWNLOAD_TEXT_LANGUAGES)
+            }
+            return options
+        }
+
+        private fun parseStrings(src: ReadableMap, key: String): List<String> {
+            val array = safeGetArray(src, key) ?: return emptyList()
+            return (0 until array.size()).mapNotNull { array.getString(it) }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.brentvatne.common.api
+
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetBool
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetDouble
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetInt
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
+import com.facebook.react.bridge.ReadableMap
+
+/**
+ * Class representing preload options for host.
+ * Only generic code here, no reference to the player.
+ */
+class PreloadOptions {
+    /** Number of bytes to cache from the beginning of the content, takes precedence over durationMs */
+    var bytes: Long = PreloadOptionsUnset.toLong()
+
+    /** Duration of content to cache from the beginning of the content */
+    var durationMs: Long = DEFAULT_DURATION_MS
+
+    /** Preloads with higher priority are started first */
+    var priority: Int = 0
+
+    /** Pin the preloaded data, so that it is evicted after every unpinned span */
+    var pin: Boolean = false
+
+    /** Eviction class of the preloaded keys, null to use the one of the source bufferConfig */
+    var cachePriority: String? = null
+
+    companion object {
+        const val PreloadOptionsUnset = -1
+        const val DEFAULT_DURATION_MS = 5000L
+
+        private const val PROP_PRELOAD_BYTES = "bytes"
+        private const val PROP_PRELOAD_DURATION_MS = "durationMs"
+        private const val PROP_PRELOAD_PRIORITY = "priority"
+        private const val PROP_PRELOAD_PIN = "pin"
+        private const val PROP_PRELOAD_CACHE_PRIORITY = "cachePriority"
+
+        @JvmStatic
+        fun parse(src: ReadableMap?): PreloadOptions {
+            val options = PreloadOptions()
+            if (src != null) {
+                // bytes may exceed int range, read it as double
+                options.bytes = safeGetDouble(src, PROP_PRELOAD_BYTES, PreloadOptionsUnset.toDouble()).toLong()
+                val durationMs = safeGetInt(src, PROP_PRELOAD_DURATION_MS, PreloadOptionsUnset)
+                if (durationMs > 0) {
+                    options.durationMs = durationMs.toLong()
+                }
+                options.priority = safeGetInt(src, PROP_PRELOAD_PRIORITY, 0)
+                options.pin = safeGetBool(src, PROP_PRELOAD_PIN, false)
+                options.cachePriority = safeGetString(src, PROP_PRELOAD_CACHE_PRIORITY, null)
+            }
+            return options
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.brentvatne.common.react
 
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
 import com.brentvatne.common.api.TimedMetadata
 import com.brentvatne.common.api.Track
 import com.brentvatne.common.api.VideoTrack
+import com.brentvatne.exoplayer.RNVBandwidthStats
+import com.brentvatne.exoplayer.RNVCacheStats
+import com.brentvatne.exoplayer.RNVStartupMetrics
 import com.brentvatne.exoplayer.ReactExoplayerView
 import com.facebook.react.bridge.Arguments
 import com.facebook.react.bridge.WritableArray
@@ -13,13 +19,18 @@ import com.facebook.react.uimanager.events.Event
 import com.facebook.react.uimanager.events.EventDispatcher
 import java.io.PrintWriter
 import java.io.StringWriter
+import java.util.concurrent.atomic.AtomicLong
 
-enum class EventTypes(val eventName: String) {
+/**
+ * @param isContinuous the event reports a state that only matters by its latest value,
+ * pending events of this type are coalesced and count against the dispatch budget of the view
+ */
+enum class EventTypes(val eventName: String, val isContinuous: Boolean = false) {
     EVENT_LOAD_START("onVideoLoadStart"),
     EVENT_LOAD("onVideoLoad"),
     EVENT_ERROR("onVideoError"),
-    EVENT_PROGRESS("onVideoProgress"),
-    EVENT_BANDWIDTH("onVideoBandwidthUpdate"),
+    EVENT_PROGRESS("onVideoProgress", true),
+    EVENT_BANDWIDTH("onVideoBandwidthUpdate", true),
     EVENT_CONTROLS_VISIBILITY_CHANGE("onControlsVisibilityChange"),
     EVENT_SEEK("onVideoSeek"),
     EVENT_END("onVideoEnd"),
@@ -35,7 +46,7 @@ enum class EventTypes(val eventName: String) {
     EVENT_TIMED_METADATA("onTimedMetadata"),
     EVENT_AUDIO_BECOMING_NOISY("onVideoAudioBecomingNoisy"),
     EVENT_AUDIO_FOCUS_CHANGE("onAudioFocusChanged"),
-    EVENT_PLAYBACK_RATE_CHANGE("onPlaybackRateChange"),
+    EVENT_PLAYBACK_RATE_CHANGE("onPlaybackRateChange", true),
     EVENT_VOLUME_CHANGE("onVolumeChange"),
     EVENT_AUDIO_TRACKS("onAudioTracks"),
     EVENT_TEXT_TRACKS("onTextTracks"),
@@ -43,7 +54,10 @@ enum class EventTypes(val eventName: String) {
     EVENT_TEXT_TRACK_DATA_CHANGED("onTextTrackDataChanged"),
     EVENT_VIDEO_TRACKS("onVideoTracks"),
     EVENT_ON_RECEIVE_AD_EVENT("onReceiveAdEvent"),
-    EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED("onPictureInPictureStatusChanged");
+    EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED("onPictureInPictureStatusChanged"),
+    EVENT_CACHE_STATS("onCacheStats"),
+    EVENT_STARTUP_METRICS("onStartupMetrics"),
+    EVENT_MEMORY_PRESSURE("onMemoryPressure");
 
     companion object {
         fun toMap() =
@@ -70,6 +84,7 @@ class VideoEventEmitter {
     lateinit var onVideoError: (errorString: String, exception: Exception, errorCode: String) -> Unit
     lateinit var onVideoProgress: (currentPosition: Long, bufferedDuration: Long, seekableDuration: Long, currentPlaybackTime: Double) -> Unit
     lateinit var onVideoBandwidthUpdate: (bitRateEstimate: Long, height: Int, width: Int, trackId: String?) -> Unit
+    lateinit var onVideoBandwidthSummary: (summary: RNVBandwidthStats.Summary, height: Int, width: Int, trackId: String?) -> Unit
     lateinit var onVideoPlaybackStateChanged: (isPlaying: Boolean, isSeeking: Boolean) -> Unit
     lateinit var onVideoSeek: (currentPosition: Long, seekTime: Long) -> Unit
     lateinit var onVideoEnd: () -> Unit
@@ -92,6 +107,11 @@ class VideoEventEmitter {
     lateinit var onTextTrackDataChanged: (textTrackData: String) -> Unit
     lateinit var onReceiveAdEvent: (adEvent: String, adData: Map<String?, String?>?) -> Unit
     lateinit var onPictureInPictureStatusChanged: (isActive: Boolean) -> Unit
+    lateinit var onCacheStats: (stats: RNVCacheStats.Snapshot) -> Unit
+    lateinit var onStartupMetrics: (metrics: RNVStartupMetrics.Snapshot) -> Unit
+    lateinit var onMemoryPressure: (level: String, previousLevel: String) -> Unit
+
+    private var eventBuilder: EventBuilder? = null
 
     fun addEventEmitters(reactContext: ThemedReactContext, view: ReactExoplayerView) {
         val dispatcher = UIManagerHelper.getEventDispatcherForReactTag(reactContext, view.id)
@@ -99,6 +119,7 @@ class VideoEventEmitter {
 
         if (dispatcher != null) {
             val event = EventBuilder(surfaceId, view.id, dispatcher)
+            eventBuilder = event
 
             onVideoLoadStart = {
                 event.dispatch(EventTypes.EVENT_LOAD_START)
@@ -188,6 +209,19 @@ class VideoEventEmitter {
                     trackId?.let { putString("trackId", it) }
                 }
             }
+            onVideoBandwidthSummary = { summary, height, width, trackId ->
+                event.dispatch(EventTypes.EVENT_BANDWIDTH) {
+                    putDouble("bitrate", summary.bitrateEstimate.toDouble())
+                    if (width > 0) {
+                        putInt("width", width)
+                    }
+                    if (height > 0) {
+                        putInt("height", height)
+                    }
+                    trackId?.let { putString("trackId", it) }
+                    putBandwidthSummary(this, summary)
+                }
+            }
             onVideoPlaybackStateChanged = { isPlaying, isSeeking ->
                 event.dispatch(EventTypes.EVENT_PLAYBACK_STATE_CHANGED) {
                     putBoolean("isPlaying", isPlaying)
@@ -309,20 +343,166 @@ class VideoEventEmitter {
                     putBoolean("isActive", isActive)
                 }
             }
+            onCacheStats = { stats ->
+                event.dispatch(EventTypes.EVENT_CACHE_STATS) {
+                    putString("namespace", stats.namespace)
+                    putDouble("cacheReadBytes", stats.cacheReadBytes.toDouble())
+                    putDouble("upstreamReadBytes", stats.upstreamReadBytes.toDouble())
+                    putDouble("hitRatio", stats.hitRatio)
+                    putDouble("ignoredOnError", stats.ignoredOnError.toDouble())
+                    putDouble("ignoredUnsetLength", stats.ignoredUnsetLength.toDouble())
+                    putDouble("evictions", stats.evictions.toDouble())
+                    putDouble("evictedBytes", stats.evictedBytes.toDouble())
+                    putDouble("usedBytes", stats.usedBytes.toDouble())
+                    putDouble("maxBytes", stats.maxBytes.toDouble())
+                }
+            }
+            onStartupMetrics = { metrics ->
+                event.dispatch(EventTypes.EVENT_STARTUP_METRICS) {
+                    putString("uri", metrics.uri)
+                    putDouble("timeToFirstFrameMs", metrics.timeToFirstFrameMs.toDouble())
+                    putMap(
+                        "phases",
+                        Arguments.createMap().apply {
+                            metrics.phases.forEach { (phase, offsetMs) -> putDouble(phase.value, offsetMs.toDouble()) }
+                        }
+                    )
+                }
+            }
+            onMemoryPressure = { level, previousLevel ->
+                event.dispatch(EventTypes.EVENT_MEMORY_PRESSURE) {
+                    putString("level", level)
+                    putString("previousLevel", previousLevel)
+                }
+            }
         }
     }
 
+    /** Drop the pending events, called when the view is dropped */
+    fun release() {
+        eventBuilder?.release()
+        eventBuilder = null
+    }
+
+    /** Event counters of all views since process start */
+    data class Stats(val dispatched: Long, val coalesced: Long, val dropped: Long)
+
     private class VideoCustomEvent(surfaceId: Int, viewId: Int, private val event: EventTypes, private val paramsSetter: (WritableMap.() -> Unit)?) :
         Event<VideoCustomEvent>(surfaceId, viewId) {
 
         override fun getEventName(): String = "top${event.eventName.removePrefix("on")}"
 
         override fun getEventData(): WritableMap? = Arguments.createMap().apply(paramsSetter ?: {})
+
+        // Continuous events not delivered yet are replaced by the latest one, discrete events are all delivered
+        override fun canCoalesce(): Boolean = event.isContinuous
+
+        override fun getCoalescingKey(): Short = event.ordinal.toShort()
     }
 
+    /**
+     * Dispatches the events of a view. Continuous events beyond DISPATCH_BUDGET_PER_SECOND are held back,
+     * only the latest one of each type is kept and dispatched once the budget allows it, in the order they were emitted.
+     * Discrete events are never held back, held continuous events are dispatched before them to keep the order.
+     * The state is confined to the main thread, events emitted from another thread are posted to it.
+     */
     private class EventBuilder(private val surfaceId: Int, private val viewId: Int, private val dispatcher: EventDispatcher) {
-        fun dispatch(event: EventTypes, paramsSetter: (WritableMap.() -> Unit)? = null) =
+        private val handler = Handler(Looper.getMainLooper())
+        private val pending = LinkedHashMap<EventTypes, (WritableMap.() -> Unit)?>()
+        private val flushRunnable = Runnable { flushPending() }
+        private var windowStartMs = 0L
+        private var windowCount = 0
+        private var isReleased = false
+
+        fun dispatch(event: EventTypes, paramsSetter: (WritableMap.() -> Unit)? = null) {
+            if (Looper.myLooper() != Looper.getMainLooper()) {
+                // Errors of background setup tasks
+                handler.post { dispatch(event, paramsSetter) }
+                return
+            }
+            if (isReleased) {
+                droppedCount.incrementAndGet()
+                return
+            }
+            if (!event.isContinuous) {
+                flushPending()
+                send(event, paramsSetter)
+                return
+            }
+            if (pending.isEmpty() && takeBudget()) {
+                send(event, paramsSetter)
+                return
+            }
+            if (pending.containsKey(event)) {
+                // Moved to the end, held events are dispatched in the order of their latest emission
+                pending.remove(event)
+                coalescedCount.incrementAndGet()
+            }
+            pending[event] = paramsSetter
+            handler.removeCallbacks(flushRunnable)
+            handler.postAtTime(flushRunnable, windowStartMs + BUDGET_WINDOW_MS)
+        }
+
+        fun release() {
+            isReleased = true
+            handler.removeCallbacks(flushRunnable)
+            droppedCount.addAndGet(pending.size.toLong())
+            pending.clear()
+        }
+
+        private fun flushPending() {
+            handler.removeCallbacks(flushRunnable)
+            val iterator = pending.entries.iterator()
+            while (iterator.hasNext()) {
+                val entry = iterator.next()
+                iterator.remove()
+                // Held events count against the window they are dispatched in, even if it is over budget
+                takeBudget()
+                send(entry.key, entry.value)
+            }
+        }
+
+        private fun takeBudget(): Boolean {
+            val now = SystemClock.uptimeMillis()
+            if (now - windowStartMs >= BUDGET_WINDOW_MS) {
+                windowStartMs = now
+                windowCount = 0
+            }
+            if (windowCount >= DISPATCH_BUDGET_PER_SECOND) {
+                return false
+            }
+            windowCount++
+            return true
+        }
+
+        private fun send(event: EventTypes, paramsSetter: (WritableMap.() -> Unit)?) {
+            dispatchedCount.incrementAndGet()
             dispatcher.dispatchEvent(VideoCustomEvent(surfaceId, viewId, event, paramsSetter))
+        }
+    }
+
+    companion object {
+        /** Continuous events dispatched per view and per second, held events beyond it */
+        const val DISPATCH_BUDGET_PER_SECOND = 60
+        private const val BUDGET_WINDOW_MS = 1000L
+
+        private val dispatchedCount = AtomicLong()
+        private val coalescedCount = AtomicLong()
+        private val droppedCount = AtomicLong()
+
+        @JvmStatic
+        fun getStats(): Stats = Stats(dispatchedCount.get(), coalescedCount.get(), droppedCount.get())
+
+        /** Throughput fields of onBandwidthUpdate, also resolved by VideoManagerModule.getBandwidthStats */
+        fun putBandwidthSummary(map: WritableMap, summary: RNVBandwidthStats.Summary) {
+            map.putDouble("windowMs", summary.windowMs.toDouble())
+            map.putInt("sampleCount", summary.sampleCount)
+            map.putDouble("meanThroughput", summary.meanThroughput.toDouble())
+            map.putDouble("p50Throughput", summary.p50Throughput.toDouble())
+            map.putDouble("p95Throughput", summary.p95Throughput.toDouble())
+            map.putDouble("minThroughput", summary.minThroughput.toDouble())
+            map.putDouble("maxThroughput", summary.maxThroughput.toDouble())
+        }
     }
 
     private fun audioTracksToArray(audioTracks: java.util.ArrayList<Track>?): WritableArray =
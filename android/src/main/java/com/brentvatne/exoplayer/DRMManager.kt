@@ -10,9 +10,25 @@ import androidx.media3.exoplayer.drm.UnsupportedDrmException
 import com.brentvatne.common.api.DRMProps
 import java.util.UUID
 
-class DRMManager(private val dataSourceFactory: HttpDataSource.Factory) : DRMManagerSpec {
+/**
+ * @param offlineKeySetId key set id of a stored offline license to play with, null to request an online license
+ */
+class DRMManager(private val dataSourceFactory: HttpDataSource.Factory, private val offlineKeySetId: ByteArray? = null) : DRMManagerSpec {
     private var hasDrmFailed = false
 
+    companion object {
+        /** License request callback with the DRM headers of the source */
+        @JvmStatic
+        fun buildDrmCallback(drmProps: DRMProps, dataSourceFactory: HttpDataSource.Factory): HttpMediaDrmCallback {
+            val drmCallback = HttpMediaDrmCallback(drmProps.drmLicenseServer, dataSourceFactory)
+            val keyRequestPropertiesArray = drmProps.drmLicenseHeader
+            for (i in keyRequestPropertiesArray.indices step 2) {
+                drmCallback.setKeyRequestProperty(keyRequestPropertiesArray[i], keyRequestPropertiesArray[i + 1])
+            }
+            return drmCallback
+        }
+    }
+
     @Throws(UnsupportedDrmException::class)
     override fun buildDrmSessionManager(uuid: UUID, drmProps: DRMProps): DrmSessionManager? = buildDrmSessionManager(uuid, drmProps, 0)
 
@@ -23,13 +39,7 @@ class DRMManager(private val dataSourceFactory: HttpDataSource.Factory) : DRMMan
         }
 
         try {
-            val drmCallback = HttpMediaDrmCallback(drmProps.drmLicenseServer, dataSourceFactory)
-
-            // Set DRM headers
-            val keyRequestPropertiesArray = drmProps.drmLicenseHeader
-            for (i in keyRequestPropertiesArray.indices step 2) {
-                drmCallback.setKeyRequestProperty(keyRequestPropertiesArray[i], keyRequestPropertiesArray[i + 1])
-            }
+            val drmCallback = buildDrmCallback(drmProps, dataSourceFactory)
 
             val mediaDrm = FrameworkMediaDrm.newInstance(uuid)
 
@@ -39,11 +49,16 @@ class DRMManager(private val dataSourceFactory: HttpDataSource.Factory) : DRMMan
                 mediaDrm.setPropertyString("securityLevel", "L3")
             }
 
-            return DefaultDrmSessionManager.Builder()
+            val drmSessionManager = DefaultDrmSessionManager.Builder()
                 .setUuidAndExoMediaDrmProvider(uuid) { mediaDrm }
                 .setKeyRequestParameters(null)
                 .setMultiSession(drmProps.multiDrm)
                 .build(drmCallback)
+            if (offlineKeySetId != null) {
+                // Keys are restored from the stored license, without license request
+                drmSessionManager.setMode(DefaultDrmSessionManager.MODE_PLAYBACK, offlineKeySetId)
+            }
+            return drmSessionManager
         } catch (ex: UnsupportedDrmException) {
             hasDrmFailed = true
             throw ex
@@ -15,11 +15,32 @@ import com.facebook.react.modules.network.ForwardingCookieHandler
 import com.facebook.react.modules.network.OkHttpClientProvider
 import okhttp3.Call
 import okhttp3.JavaNetCookieJar
+import java.lang.ref.WeakReference
 
 object DataSourceUtil {
-    private var defaultDataSourceFactory: DataSource.Factory? = null
-    private var defaultHttpDataSourceFactory: HttpDataSource.Factory? = null
+    private const val MAX_CACHED_FACTORIES = 16
+
+    /**
+     * Factories are cached by request headers and bandwidth meter.
+     * Building a factory is cheap, but reusing it avoids allocations on each setSrc and keeps
+     * the same factory instance for a given stream.
+     */
+    private data class FactoryKey(val requestHeaders: Map<String, String>, val bandwidthMeter: DefaultBandwidthMeter?)
+
+    data class FactoryStats(val builds: Long, val reuses: Long, val size: Int)
+
+    private val dataSourceFactories = lruMap<DataSource.Factory>()
+    private val httpDataSourceFactories = lruMap<HttpDataSource.Factory>()
+    private var builds = 0L
+    private var reuses = 0L
     private var userAgent: String? = null
+    // Weak: this object outlives react contexts, which are recreated on reload
+    private var cookieJarContext = WeakReference<ReactContext>(null)
+
+    private fun <T> lruMap(): LinkedHashMap<FactoryKey, T> =
+        object : LinkedHashMap<FactoryKey, T>(MAX_CACHED_FACTORIES, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<FactoryKey, T>?): Boolean = size > MAX_CACHED_FACTORIES
+        }
 
     private fun getUserAgent(context: ReactContext): String {
         if (userAgent == null) {
@@ -28,31 +49,74 @@ object DataSourceUtil {
         return userAgent as String
     }
 
+    private fun buildKey(bandwidthMeter: DefaultBandwidthMeter?, requestHeaders: Map<String, String>?): FactoryKey =
+        // Sorted copy: header order does not matter, and the caller may mutate its map later
+        FactoryKey(requestHeaders?.toSortedMap() ?: emptyMap(), bandwidthMeter)
+
+    /**
+     * @param countStats false for the lookups nested in another one, so that each public call is counted once
+     */
+    private fun <T> getOrBuild(cache: LinkedHashMap<FactoryKey, T>, key: FactoryKey, countStats: Boolean, builder: () -> T): T {
+        val factory = cache[key]
+        if (factory != null) {
+            if (countStats) reuses++
+            return factory
+        }
+        if (countStats) builds++
+        return builder().also { cache[key] = it }
+    }
+
     @JvmStatic
+    @Synchronized
     fun getDefaultDataSourceFactory(context: ReactContext, bandwidthMeter: DefaultBandwidthMeter?, requestHeaders: Map<String, String>?): DataSource.Factory {
-        if (defaultDataSourceFactory == null || !requestHeaders.isNullOrEmpty()) {
-            defaultDataSourceFactory = buildDataSourceFactory(context, bandwidthMeter, requestHeaders)
+        setupCookieJar(context)
+        return getOrBuild(dataSourceFactories, buildKey(bandwidthMeter, requestHeaders), true) {
+            buildDataSourceFactory(context, bandwidthMeter, requestHeaders)
         }
-        return defaultDataSourceFactory as DataSource.Factory
     }
 
     @JvmStatic
+    @Synchronized
     fun getDefaultHttpDataSourceFactory(
         context: ReactContext,
         bandwidthMeter: DefaultBandwidthMeter?,
         requestHeaders: Map<String, String>?
     ): HttpDataSource.Factory {
-        if (defaultHttpDataSourceFactory == null || !requestHeaders.isNullOrEmpty()) {
-            defaultHttpDataSourceFactory = buildHttpDataSourceFactory(context, bandwidthMeter, requestHeaders)
-        }
-        return defaultHttpDataSourceFactory as HttpDataSource.Factory
+        setupCookieJar(context)
+        return getHttpDataSourceFactory(context, bandwidthMeter, requestHeaders, true)
     }
 
+    private fun getHttpDataSourceFactory(
+        context: ReactContext,
+        bandwidthMeter: DefaultBandwidthMeter?,
+        requestHeaders: Map<String, String>?,
+        countStats: Boolean
+    ): HttpDataSource.Factory =
+        getOrBuild(httpDataSourceFactories, buildKey(bandwidthMeter, requestHeaders), countStats) {
+            buildHttpDataSourceFactory(context, bandwidthMeter, requestHeaders)
+        }
+
+    @JvmStatic
+    @Synchronized
+    fun getFactoryStats(): FactoryStats = FactoryStats(builds, reuses, dataSourceFactories.size + httpDataSourceFactories.size)
+
     private fun buildDataSourceFactory(
         context: ReactContext,
         bandwidthMeter: DefaultBandwidthMeter?,
         requestHeaders: Map<String, String>?
-    ): DataSource.Factory = DefaultDataSource.Factory(context, buildHttpDataSourceFactory(context, bandwidthMeter, requestHeaders))
+    ): DataSource.Factory = DefaultDataSource.Factory(context, getHttpDataSourceFactory(context, bandwidthMeter, requestHeaders, false))
+
+    /**
+     * The OkHttp client is shared with the whole app, its cookie jar is bound to the react context of the last lookup.
+     * Called on each lookup, as cached factories outlive a reload: rebinding the jar also drops the previous context.
+     */
+    private fun setupCookieJar(context: ReactContext) {
+        if (cookieJarContext.get() === context) return
+        val container = OkHttpClientProvider.getOkHttpClient().cookieJar as CookieJarContainer
+        val handler = ForwardingCookieHandler(context)
+        container.setCookieJar(JavaNetCookieJar(handler))
+        cookieJarContext = WeakReference(context)
+    }
 
     private fun buildHttpDataSourceFactory(
         context: ReactContext,
@@ -60,9 +124,6 @@ object DataSourceUtil {
         requestHeaders: Map<String, String>?
     ): HttpDataSource.Factory {
         val client = OkHttpClientProvider.getOkHttpClient()
-        val container = client.cookieJar as CookieJarContainer
-        val handler = ForwardingCookieHandler(context)
-        container.setCookieJar(JavaNetCookieJar(handler))
         val okHttpDataSourceFactory = OkHttpDataSource.Factory(client as Call.Factory)
             .setTransferListener(bandwidthMeter)
 
@@ -1,27 +1,52 @@
 package com.brentvatne.exoplayer
 
 import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import androidx.media3.exoplayer.upstream.BandwidthMeter
 import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
 import androidx.media3.exoplayer.upstream.DefaultLoadErrorHandlingPolicy
 import androidx.media3.exoplayer.upstream.LoadErrorHandlingPolicy
 
+/**
+ * Default config, with a bandwidth meter shared by all the players.
+ * The meter starts from the estimates stored by the previous sessions for the current network,
+ * initialBitrate being used for the networks without a stored estimate.
+ */
 class DefaultReactExoplayerConfig(private val context: Context, override var initialBitrate: Long? = null) : ReactExoplayerConfig {
 
-    private var bandWidthMeter: DefaultBandwidthMeter = createBandwidthMeter(initialBitrate)
+    private val estimateStore = RNVBandwidthEstimateStore(context)
+    private var bandWidthMeter: DefaultBandwidthMeter? = null
+
+    // Whether the meter measured a transfer, its estimate is then kept over a new initialBitrate
+    private var hasSamples = false
+
+    private val samplesListener = BandwidthMeter.EventListener { _, _, _ -> hasSamples = true }
 
     override var disableDisconnectError: Boolean = false
 
+    // Built on first use, so that the stored estimates are loaded meanwhile
     override val bandwidthMeter: DefaultBandwidthMeter
-        get() = bandWidthMeter
+        get() = bandWidthMeter ?: createBandwidthMeter(initialBitrate).also { bandWidthMeter = it }
 
-    private fun createBandwidthMeter(bitrate: Long?): DefaultBandwidthMeter =
-        DefaultBandwidthMeter.Builder(context)
+    private fun createBandwidthMeter(bitrate: Long?): DefaultBandwidthMeter {
+        val builder = DefaultBandwidthMeter.Builder(context)
             .setInitialBitrateEstimate(bitrate ?: DefaultBandwidthMeter.DEFAULT_INITIAL_BITRATE_ESTIMATE)
-            .build()
+        estimateStore.applyTo(builder)
+        val meter = builder.build()
+        val handler = Handler(Looper.getMainLooper())
+        meter.addEventListener(handler, samplesListener)
+        estimateStore.attach(meter, handler)
+        hasSamples = false
+        return meter
+    }
 
     override fun setInitialBitrate(bitrate: Long) {
         if (initialBitrate == bitrate) return
         initialBitrate = bitrate
+        // Players share the meter, do not restart a meter which already measured the network
+        if (hasSamples) return
+        bandWidthMeter?.removeEventListener(samplesListener)
         bandWidthMeter = createBandwidthMeter(bitrate)
     }
 
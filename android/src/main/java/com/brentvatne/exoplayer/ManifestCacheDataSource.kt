@@ -0,0 +1,184 @@
+package com.brentvatne.exoplayer
+
+import android.net.Uri
+import androidx.media3.common.C
+import androidx.media3.common.util.Util
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.TransferListener
+import androidx.media3.datasource.cache.CacheKeyFactory
+import java.io.ByteArrayOutputStream
+import kotlin.math.min
+
+/**
+ * Data source serving HLS, DASH and SmoothStreaming manifests from RNVManifestCache.
+ * Other requests, and manifests that cannot be stored, are forwarded to the upstream data source.
+ * A manifest fetched from upstream is recorded while it is read and stored once complete,
+ * unless it describes a live stream.
+ */
+class ManifestCacheDataSource(
+    private val upstream: DataSource,
+    private val forceManifest: Boolean,
+    private val fallbackTtlMs: Long,
+    private val cacheKeyFactory: CacheKeyFactory?
+) : DataSource {
+
+    /**
+     * @param forceManifest true if all requests are manifests (DASH and SmoothStreaming manifest loaders),
+     * false to detect them from the uri
+     * @param fallbackTtlMs time to live of manifests served without Cache-Control max-age, 0 to not store them
+     */
+    class Factory(
+        private val upstreamFactory: DataSource.Factory,
+        private val forceManifest: Boolean,
+        private val fallbackTtlMs: Long,
+        private val cacheKeyFactory: CacheKeyFactory?
+    ) : DataSource.Factory {
+        override fun createDataSource(): DataSource =
+            ManifestCacheDataSource(upstreamFactory.createDataSource(), forceManifest, fallbackTtlMs, cacheKeyFactory)
+    }
+
+    private var dataSpec: DataSpec? = null
+    private var cachedData: ByteArray? = null
+    private var cachedUri: Uri? = null
+    private var readPosition = 0
+    private var upstreamOpened = false
+    private var upstreamLength = C.LENGTH_UNSET.toLong()
+    private var recording: ByteArrayOutputStream? = null
+    private var recordingKey: String? = null
+    private var recordingTtlMs = 0L
+
+    override fun addTransferListener(transferListener: TransferListener) {
+        upstream.addTransferListener(transferListener)
+    }
+
+    override fun open(dataSpec: DataSpec): Long {
+        this.dataSpec = dataSpec
+        if (!isStorable(dataSpec)) {
+            upstreamOpened = true
+            return upstream.open(dataSpec)
+        }
+        val key = cacheKeyFactory?.buildCacheKey(dataSpec) ?: dataSpec.uri.toString()
+        val manifest = RNVManifestCache.get(key)
+        if (manifest != null) {
+            cachedData = manifest.data
+            cachedUri = manifest.uri
+            readPosition = 0
+            return manifest.data.size.toLong()
+        }
+        upstreamLength = upstream.open(dataSpec)
+        upstreamOpened = true
+        val ttlMs = getTtlMs(upstream.responseHeaders)
+        if (ttlMs > 0) {
+            recording = ByteArrayOutputStream()
+            recordingKey = key
+            recordingTtlMs = ttlMs
+        }
+        return upstreamLength
+    }
+
+    override fun read(buffer: ByteArray, offset: Int, length: Int): Int {
+        val data = cachedData
+        if (data != null) {
+            if (length == 0) return 0
+            if (readPosition >= data.size) return C.RESULT_END_OF_INPUT
+            val bytesToRead = min(length, data.size - readPosition)
+            System.arraycopy(data, readPosition, buffer, offset, bytesToRead)
+            readPosition += bytesToRead
+            return bytesToRead
+        }
+        val bytesRead = upstream.read(buffer, offset, length)
+        val currentRecording = recording ?: return bytesRead
+        if (bytesRead == C.RESULT_END_OF_INPUT) {
+            store(currentRecording.toByteArray())
+        } else if (bytesRead > 0) {
+            if (currentRecording.size() + bytesRead > RNVManifestCache.MAX_ENTRY_BYTES) {
+                recording = null
+            } else {
+                currentRecording.write(buffer, offset, bytesRead)
+            }
+        }
+        return bytesRead
+    }
+
+    // Relative urls of the manifest resolve against the uri it was served from
+    override fun getUri(): Uri? = if (cachedData != null) cachedUri else upstream.uri
+
+    override fun getResponseHeaders(): Map<String, List<String>> = if (cachedData != null) emptyMap() else upstream.responseHeaders
+
+    override fun close() {
+        // XML parsers may stop reading before the end of input, keep the manifest if it is complete
+        recording?.toByteArray()?.let {
+            if (isComplete(it)) {
+                store(it)
+            }
+        }
+        recording = null
+        cachedData = null
+        cachedUri = null
+        dataSpec = null
+        upstreamLength = C.LENGTH_UNSET.toLong()
+        if (upstreamOpened) {
+            upstreamOpened = false
+            upstream.close()
+        }
+    }
+
+    private fun store(data: ByteArray) {
+        recording = null
+        if (!isLive(data)) {
+            // Final uri of the upstream request, after redirects
+            val uri = upstream.uri ?: dataSpec?.uri ?: return
+            RNVManifestCache.put(recordingKey!!, RNVManifestCache.Manifest(data, uri), recordingTtlMs)
+        }
+    }
+
+    /**
+     * Time to live from the Cache-Control response header.
+     * @return 0 if the manifest must not be stored
+     */
+    private fun getTtlMs(responseHeaders: Map<String, List<String>>): Long {
+        val cacheControl = responseHeaders.entries
+            .firstOrNull { it.key.equals("Cache-Control", ignoreCase = true) }
+            ?.value?.joinToString(",")?.lowercase()
+            ?: return fallbackTtlMs
+        if (cacheControl.contains("no-store") || cacheControl.contains("no-cache")) {
+            return 0
+        }
+        val maxAge = MAX_AGE_REGEX.find(cacheControl)?.groupValues?.get(1)?.toLongOrNull()
+        return if (maxAge != null) maxAge * 1000 else fallbackTtlMs
+    }
+
+    private fun isStorable(dataSpec: DataSpec): Boolean {
+        if (dataSpec.httpMethod != DataSpec.HTTP_METHOD_GET || dataSpec.position != 0L || dataSpec.length != C.LENGTH_UNSET.toLong()) {
+            return false
+        }
+        val scheme = dataSpec.uri.scheme
+        if (scheme != "http" && scheme != "https") return false
+        if (forceManifest) return true
+        val type = Util.inferContentType(dataSpec.uri)
+        return type == C.CONTENT_TYPE_HLS || type == C.CONTENT_TYPE_DASH || type == C.CONTENT_TYPE_SS
+    }
+
+    private fun isComplete(data: ByteArray): Boolean {
+        if (upstreamLength != C.LENGTH_UNSET.toLong()) return data.size.toLong() == upstreamLength
+        val end = String(data, Charsets.UTF_8).trimEnd()
+        return end.endsWith("</MPD>") || end.endsWith("</SmoothStreamingMedia>")
+    }
+
+    companion object {
+        private val DASH_DYNAMIC_REGEX = Regex("type\\s*=\\s*\"dynamic\"")
+        private val SS_LIVE_REGEX = Regex("IsLive\\s*=\\s*\"true\"", RegexOption.IGNORE_CASE)
+        private val MAX_AGE_REGEX = Regex("max-age\\s*=\\s*(\\d+)")
+
+        /** @return true if the manifest describes a live stream, its content changes over time */
+        private fun isLive(data: ByteArray): Boolean {
+            val manifest = String(data, Charsets.UTF_8)
+            // HLS media playlists of VOD content end with EXT-X-ENDLIST, multivariant playlists have no segment
+            if (manifest.startsWith("#EXTM3U")) {
+                return manifest.contains("#EXTINF") && !manifest.contains("#EXT-X-ENDLIST")
+            }
+            return DASH_DYNAMIC_REGEX.containsMatchIn(manifest) || SS_LIVE_REGEX.containsMatchIn(manifest)
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.net.wifi.WifiManager
+import android.os.Handler
+import android.os.SystemClock
+import androidx.media3.common.C
+import androidx.media3.common.util.NetworkTypeObserver
+import androidx.media3.exoplayer.upstream.BandwidthMeter
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
+import com.brentvatne.common.toolbox.DebugLog
+
+/**
+ * Persistent bandwidth estimates, keyed by network: network type for cellular generations and ethernet,
+ * hash of the SSID for Wi-Fi when readable (the app holds the Wi-Fi state and location permissions), Wi-Fi type otherwise.
+ * Preferences are opened at construction so that they load in background, and written with apply, off the main thread.
+ * An estimate is stored once the meter converged on the network, at most every PERSIST_INTERVAL_MS.
+ */
+class RNVBandwidthEstimateStore(context: Context) : BandwidthMeter.EventListener {
+    private val context = context.applicationContext
+    private val preferences: SharedPreferences = this.context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE)
+    private val networkTypeObserver = NetworkTypeObserver.getInstance(this.context)
+
+    private var meter: BandwidthMeter? = null
+    private var networkType = C.NETWORK_TYPE_UNKNOWN
+    private var samplesOnNetwork = 0
+    private var lastPersistMs = 0L
+
+    /** Seed the initial estimates of a meter builder with the stored ones, the stored Wi-Fi estimate being the current SSID one */
+    fun applyTo(builder: DefaultBandwidthMeter.Builder) {
+        for ((key, value) in preferences.all) {
+            if (!key.startsWith(TYPE_KEY_PREFIX) || value !is Long) continue
+            val type = key.substring(TYPE_KEY_PREFIX.length).toIntOrNull() ?: continue
+            builder.setInitialBitrateEstimate(type, value)
+        }
+        val wifiEstimate = getWifiKey()?.let { preferences.getLong(it, 0) } ?: 0
+        if (wifiEstimate > 0) {
+            builder.setInitialBitrateEstimate(C.NETWORK_TYPE_WIFI, wifiEstimate)
+        }
+    }
+
+    /** Follow the estimates of the meter, replacing the previous one */
+    fun attach(meter: BandwidthMeter, handler: Handler) {
+        this.meter?.removeEventListener(this)
+        this.meter = meter
+        samplesOnNetwork = 0
+        meter.addEventListener(handler, this)
+    }
+
+    override fun onBandwidthSample(elapsedMs: Int, bytesTransferred: Long, bitrateEstimate: Long) {
+        val currentType = networkTypeObserver.networkType
+        if (currentType != networkType) {
+            // The meter restarts from the initial estimate of the new network type
+            networkType = currentType
+            samplesOnNetwork = 0
+        }
+        samplesOnNetwork++
+        val now = SystemClock.elapsedRealtime()
+        if (samplesOnNetwork < MIN_SAMPLES_TO_PERSIST || bitrateEstimate <= 0 || now - lastPersistMs < PERSIST_INTERVAL_MS) {
+            return
+        }
+        if (currentType == C.NETWORK_TYPE_UNKNOWN || currentType == C.NETWORK_TYPE_OFFLINE) {
+            return
+        }
+        lastPersistMs = now
+        val editor = preferences.edit().putLong(TYPE_KEY_PREFIX + currentType, bitrateEstimate)
+        if (currentType == C.NETWORK_TYPE_WIFI) {
+            getWifiKey()?.let { editor.putLong(it, bitrateEstimate) }
+        }
+        editor.apply()
+        DebugLog.d(TAG, "stored estimate $bitrateEstimate bps for network type $currentType")
+    }
+
+    // Key of the current Wi-Fi network, null if its SSID cannot be read
+    private fun getWifiKey(): String? {
+        return try {
+            val wifiManager = context.getSystemService(Context.WIFI_SERVICE) as WifiManager?
+            @Suppress("DEPRECATION")
+            val ssid = wifiManager?.connectionInfo?.ssid
+            if (ssid == null || ssid == WifiManager.UNKNOWN_SSID) null else WIFI_KEY_PREFIX + Integer.toHexString(ssid.hashCode())
+        } catch (e: SecurityException) {
+            null
+        }
+    }
+
+    companion object {
+        private const val TAG = "RNVBandwidthEstimateStore"
+        private const val PREFERENCES_NAME = "RNVBandwidthEstimates"
+        private const val TYPE_KEY_PREFIX = "type:"
+        private const val WIFI_KEY_PREFIX = "wifi:"
+        private const val MIN_SAMPLES_TO_PERSIST = 5
+        private const val PERSIST_INTERVAL_MS = 30_000L
+    }
+}
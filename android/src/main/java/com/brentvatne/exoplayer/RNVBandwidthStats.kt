@@ -0,0 +1,132 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import java.util.Arrays
+
+/**
+ * Throughput distribution of the transfers reported by a bandwidth meter.
+ * The meter is shared by all the players of the process, so the samples include the transfers of every player.
+ * The last CAPACITY samples are kept in a ring buffer of primitives, so that recording a sample does not allocate.
+ * Samples are grouped in windows: takeWindowSummary summarizes the samples of the current window and starts a new one.
+ */
+class RNVBandwidthStats {
+
+    /** Throughputs in bits/sec over a set of transfer samples */
+    data class Summary(
+        val windowMs: Long,
+        val sampleCount: Int,
+        val meanThroughput: Long,
+        val p50Throughput: Long,
+        val p95Throughput: Long,
+        val minThroughput: Long,
+        val maxThroughput: Long,
+        val bitrateEstimate: Long
+    )
+
+    private val samples = LongArray(CAPACITY)
+    private val sortScratch = LongArray(CAPACITY)
+
+    // Next write index in samples, and number of samples retained
+    private var writeIndex = 0
+    private var retainedCount = 0
+
+    // Samples recorded since the window start, may be above CAPACITY
+    private var windowCount = 0
+    private var windowStartMs = SystemClock.elapsedRealtime()
+    private var bitrateEstimate = 0L
+
+    /**
+     * Record a transfer sample, as reported by BandwidthMeter.EventListener.onBandwidthSample
+     * @param bitrateEstimate bandwidth estimate of the meter after the sample
+     */
+    @Synchronized
+    fun addSample(elapsedMs: Int, bytes: Long, bitrateEstimate: Long) {
+        this.bitrateEstimate = bitrateEstimate
+        if (elapsedMs <= 0) return
+        samples[writeIndex] = bytes * 8000 / elapsedMs
+        writeIndex = (writeIndex + 1) % CAPACITY
+        if (retainedCount < CAPACITY) retainedCount++
+        windowCount++
+    }
+
+    @Synchronized
+    fun getWindowElapsedMs(): Long = SystemClock.elapsedRealtime() - windowStartMs
+
+    /**
+     * Summarize the samples of the current window, and start a new one.
+     * @return null if no sample has been recorded during the window
+     */
+    @Synchronized
+    fun takeWindowSummary(): Summary? {
+        val summary = summarize(minOf(windowCount, retainedCount), getWindowElapsedMs())
+        windowCount = 0
+        windowStartMs = SystemClock.elapsedRealtime()
+        return summary
+    }
+
+    /** Summarize the last samples retained, regardless of windows. Null if none */
+    @Synchronized
+    fun getRecentSummary(): Summary? = summarize(retainedCount, getWindowElapsedMs())
+
+    /**
+     * Coefficient of variation (standard deviation / mean) of the last samples, 0 if less than 2 samples.
+     * @param maxSamples number of most recent samples considered
+     */
+    @Synchronized
+    fun getVariation(maxSamples: Int): Double {
+        val count = minOf(maxSamples, retainedCount)
+        if (count < 2) return 0.0
+        var sum = 0.0
+        var sumOfSquares = 0.0
+        for (i in 0 until count) {
+            val value = samples[(writeIndex - 1 - i + CAPACITY) % CAPACITY].toDouble()
+            sum += value
+            sumOfSquares += value * value
+        }
+        val mean = sum / count
+        if (mean <= 0) return 0.0
+        val variance = maxOf(sumOfSquares / count - mean * mean, 0.0)
+        return Math.sqrt(variance) / mean
+    }
+
+    @Synchronized
+    fun reset() {
+        writeIndex = 0
+        retainedCount = 0
+        windowCount = 0
+        windowStartMs = SystemClock.elapsedRealtime()
+        bitrateEstimate = 0
+    }
+
+    // Summary of the last count samples
+    private fun summarize(count: Int, windowMs: Long): Summary? {
+        if (count == 0) return null
+        var sum = 0L
+        for (i in 0 until count) {
+            val value = samples[(writeIndex - 1 - i + CAPACITY) % CAPACITY]
+            sortScratch[i] = value
+            sum += value
+        }
+        Arrays.sort(sortScratch, 0, count)
+        return Summary(
+            windowMs,
+            count,
+            sum / count,
+            percentile(count, 50),
+            percentile(count, 95),
+            sortScratch[0],
+            sortScratch[count - 1],
+            bitrateEstimate
+        )
+    }
+
+    // Nearest rank percentile of the sorted scratch
+    private fun percentile(count: Int, percent: Int): Long {
+        val rank = (percent * count + 99) / 100
+        return sortScratch[maxOf(rank, 1) - 1]
+    }
+
+    companion object {
+        const val CAPACITY = 256
+    }
+}
@@ -0,0 +1,153 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import androidx.media3.common.C
+import androidx.media3.common.TrackGroup
+import androidx.media3.exoplayer.source.chunk.MediaChunk
+import androidx.media3.exoplayer.source.chunk.MediaChunkIterator
+import androidx.media3.exoplayer.trackselection.BaseTrackSelection
+import androidx.media3.exoplayer.upstream.BandwidthMeter
+import com.brentvatne.common.toolbox.DebugLog
+import kotlin.math.ln
+
+/**
+ * Track selection driven by the buffer occupancy, following the BOLA utility rule:
+ * the selected format maximizes (V * (utility + gp) - buffer) / bitrate, utility being the log of the bitrate ratio to the lowest one.
+ * V and gp are set so that the lowest format is selected up to lowBuffer and the highest one from highBuffer.
+ * In Hybrid mode, the throughput decides below lowBuffer (startup, rebuffers, live) and caps the buffer decision up to highBuffer.
+ * While the fast start phase is active, the lowest format is selected.
+ * Each switch is logged with its reason.
+ */
+class RNVBufferBasedTrackSelection(
+    group: TrackGroup,
+    tracks: IntArray,
+    type: Int,
+    private val bandwidthMeter: BandwidthMeter,
+    private val mode: Mode,
+    private val lowBufferUs: Long,
+    private val highBufferUs: Long,
+    private val fastStart: RNVFastStartPhase?
+) : BaseTrackSelection(group, tracks, type) {
+
+    enum class Mode(val value: String) {
+        Throughput("throughput"),
+        Buffer("buffer"),
+        Hybrid("hybrid");
+
+        companion object {
+            @JvmStatic
+            fun fromString(value: String?): Mode = values().firstOrNull { it.value == value } ?: Throughput
+        }
+    }
+
+    // Indexed like the formats of the selection, highest bitrate first
+    private val utilities = DoubleArray(length())
+    private val gp: Double
+    private val v: Double
+
+    private var selectedIndex: Int
+    private var reason = C.SELECTION_REASON_INITIAL
+
+    init {
+        val lowestBitrate = getBitrate(length() - 1).toDouble()
+        for (i in 0 until length()) {
+            utilities[i] = ln(getBitrate(i) / lowestBitrate) + 1
+        }
+        val lowBufferS = lowBufferUs / 1_000_000.0
+        val highBufferS = maxOf(highBufferUs, lowBufferUs + 1) / 1_000_000.0
+        gp = (utilities[0] - 1) / (highBufferS / lowBufferS - 1)
+        v = if (gp > 0) lowBufferS / gp else 0.0
+        selectedIndex = getThroughputIndex(Long.MIN_VALUE)
+    }
+
+    override fun getSelectedIndex(): Int = selectedIndex
+
+    override fun getSelectionReason(): Int = reason
+
+    override fun getSelectionData(): Any? = null
+
+    override fun updateSelectedTrack(
+        playbackPositionUs: Long,
+        bufferedDurationUs: Long,
+        availableDurationUs: Long,
+        queue: List<MediaChunk>,
+        mediaChunkIterators: Array<MediaChunkIterator>
+    ) {
+        val isFastStarting = fastStart?.update(playbackPositionUs, bufferedDurationUs) == true
+        val nowMs = SystemClock.elapsedRealtime()
+        val throughputIndex = getThroughputIndex(nowMs)
+        val newIndex: Int
+        val switchReason: String
+        if (isFastStarting) {
+            newIndex = length() - 1
+            switchReason = "fast start"
+        } else if (mode == Mode.Hybrid && bufferedDurationUs < lowBufferUs) {
+            newIndex = throughputIndex
+            switchReason = "throughput, buffer below low threshold"
+        } else {
+            val bufferIndex = getBufferIndex(bufferedDurationUs, nowMs)
+            if (mode == Mode.Hybrid && bufferedDurationUs < highBufferUs && throughputIndex > bufferIndex) {
+                newIndex = throughputIndex
+                switchReason = "buffer capped by throughput"
+            } else {
+                newIndex = bufferIndex
+                switchReason = "buffer"
+            }
+        }
+        if (newIndex == selectedIndex) {
+            return
+        }
+        DebugLog.d(
+            TAG,
+            "${mode.value} switch ${getBitrate(selectedIndex)} -> ${getBitrate(newIndex)} bps: $switchReason" +
+                " (buffer ${bufferedDurationUs / 1000} ms, estimate ${bandwidthMeter.bitrateEstimate} bps)"
+        )
+        selectedIndex = newIndex
+        reason = C.SELECTION_REASON_ADAPTIVE
+    }
+
+    // Format maximizing the BOLA objective for the buffer level
+    private fun getBufferIndex(bufferedDurationUs: Long, nowMs: Long): Int {
+        if (gp <= 0) {
+            // Formats with the same bitrate, nothing to choose from the buffer
+            return getThroughputIndex(nowMs)
+        }
+        val bufferS = bufferedDurationUs / 1_000_000.0
+        var bestIndex = -1
+        var bestScore = Double.NEGATIVE_INFINITY
+        for (i in 0 until length()) {
+            if (isTrackExcluded(i, nowMs)) continue
+            val score = (v * (utilities[i] + gp) - bufferS) / getBitrate(i)
+            if (score > bestScore) {
+                bestScore = score
+                bestIndex = i
+            }
+        }
+        return if (bestIndex >= 0) bestIndex else length() - 1
+    }
+
+    // Highest format sustainable with the bandwidth estimate
+    private fun getThroughputIndex(nowMs: Long): Int {
+        val effectiveBitrate = bandwidthMeter.bitrateEstimate * BANDWIDTH_FRACTION
+        var lowestIndex = length() - 1
+        for (i in 0 until length()) {
+            if (nowMs != Long.MIN_VALUE && isTrackExcluded(i, nowMs)) continue
+            if (getBitrate(i) <= effectiveBitrate) {
+                return i
+            }
+            lowestIndex = i
+        }
+        return lowestIndex
+    }
+
+    private fun getBitrate(index: Int): Int = maxOf(getFormat(index).bitrate, 1)
+
+    companion object {
+        private const val TAG = "RNVBufferBasedTrackSelection"
+        private const val BANDWIDTH_FRACTION = 0.7
+        const val DEFAULT_LOW_BUFFER_MS = 10_000L
+
+        // Part of the max buffer from which the highest format is selected, when no high threshold is set
+        const val DEFAULT_HIGH_BUFFER_FRACTION = 0.8
+    }
+}
@@ -0,0 +1,250 @@
+package com.brentvatne.exoplayer
+
+import androidx.media3.common.C
+import androidx.media3.common.Format
+import androidx.media3.common.Timeline
+import androidx.media3.common.TrackGroup
+import androidx.media3.common.util.Clock
+import androidx.media3.datasource.cache.Cache
+import androidx.media3.datasource.cache.CacheKeyFactory
+import androidx.media3.exoplayer.source.MediaSource
+import androidx.media3.exoplayer.source.chunk.MediaChunk
+import androidx.media3.exoplayer.source.chunk.MediaChunkIterator
+import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection
+import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection.AdaptationCheckpoint
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection
+import androidx.media3.exoplayer.trackselection.TrackSelectionUtil
+import androidx.media3.exoplayer.upstream.BandwidthMeter
+import com.google.common.collect.ImmutableList
+
+/**
+ * Adaptive track selection biased toward the renditions whose next chunk is already in the cache.
+ * A cached rendition may be selected up to bitrateTolerance above the bandwidth estimate, and is preferred
+ * to an uncached rendition less than bitrateTolerance above it. Other decisions are the media3 ones.
+ * While the fast start phase is active, the lowest rendition is selected,
+ * then quality increases once minDurationForQualityIncreaseMs is buffered.
+ */
+class RNVCacheAwareTrackSelection(
+    group: TrackGroup,
+    tracks: IntArray,
+    type: Int,
+    bandwidthMeter: BandwidthMeter,
+    adaptationCheckpoints: List<AdaptationCheckpoint>,
+    private val cache: Cache?,
+    private val cacheKeyFactory: CacheKeyFactory,
+    private val bitrateTolerance: Float,
+    minDurationForQualityIncreaseMs: Long,
+    private val fastStart: RNVFastStartPhase?
+) : AdaptiveTrackSelection(
+    group,
+    tracks,
+    type,
+    bandwidthMeter,
+    minDurationForQualityIncreaseMs,
+    AdaptiveTrackSelection.DEFAULT_MAX_DURATION_FOR_QUALITY_DECREASE_MS.toLong(),
+    AdaptiveTrackSelection.DEFAULT_MIN_DURATION_TO_RETAIN_AFTER_DISCARD_MS.toLong(),
+    AdaptiveTrackSelection.DEFAULT_MAX_WIDTH_TO_DISCARD,
+    AdaptiveTrackSelection.DEFAULT_MAX_HEIGHT_TO_DISCARD,
+    AdaptiveTrackSelection.DEFAULT_BANDWIDTH_FRACTION,
+    AdaptiveTrackSelection.DEFAULT_BUFFERED_FRACTION_TO_LIVE_EDGE_FOR_QUALITY_INCREASE,
+    adaptationCheckpoints,
+    Clock.DEFAULT
+) {
+
+    /**
+     * Factory building cache aware selections while a cache is set, plain adaptive selections otherwise.
+     * With a fast start duration, it builds them with a lowest rendition start and a quicker quality increase.
+     * With a Buffer or Hybrid ABR mode, it builds buffer based selections instead, ignoring the cache.
+     * Settings are updated by the view for each source, they apply to the next track selection.
+     * The fast start phase is armed by beginStartup when the view prepares a source.
+     */
+    class Factory : AdaptiveTrackSelection.Factory() {
+        @Volatile
+        private var cache: Cache? = null
+
+        @Volatile
+        private var cacheKeyFactory: CacheKeyFactory = CacheKeyFactory.DEFAULT
+
+        @Volatile
+        private var bitrateTolerance = DEFAULT_BITRATE_TOLERANCE
+
+        @Volatile
+        private var abrMode = RNVBufferBasedTrackSelection.Mode.Throughput
+
+        @Volatile
+        private var abrLowBufferUs = 0L
+
+        @Volatile
+        private var abrHighBufferUs = 0L
+
+        @Volatile
+        private var fastStartDurationMs = 0L
+
+        private val fastStart = RNVFastStartPhase()
+
+        /**
+         * @param cache cache to look up, null to disable the cache preference
+         * @param cacheKeyFactory key factory of the cache data source, null for the media3 default one
+         * @param bitrateTolerance fraction of the bitrate, negative for the default one
+         */
+        fun setCache(cache: Cache?, cacheKeyFactory: CacheKeyFactory?, bitrateTolerance: Float) {
+            this.cache = cache
+            this.cacheKeyFactory = cacheKeyFactory ?: CacheKeyFactory.DEFAULT
+            this.bitrateTolerance = if (bitrateTolerance >= 0) bitrateTolerance else DEFAULT_BITRATE_TOLERANCE
+        }
+
+        /**
+         * @param mode ABR algorithm, Throughput for the media3 one
+         * @param lowBufferMs buffer up to which buffer based selections pick the lowest format
+         * @param highBufferMs buffer from which buffer based selections pick the highest format
+         */
+        fun setAbr(mode: RNVBufferBasedTrackSelection.Mode, lowBufferMs: Long, highBufferMs: Long) {
+            abrMode = mode
+            abrLowBufferUs = lowBufferMs * 1000
+            abrHighBufferUs = highBufferMs * 1000
+        }
+
+        /**
+         * @param durationMs media duration loaded at the lowest rendition at the start of a source, 0 to disable
+         */
+        fun setFastStart(durationMs: Long) {
+            fastStartDurationMs = durationMs
+        }
+
+        /** Arm the fast start phase for the source being prepared, if enabled */
+        fun beginStartup() {
+            fastStart.arm(fastStartDurationMs)
+        }
+
+        override fun createTrackSelections(
+            definitions: Array<out ExoTrackSelection.Definition?>,
+            bandwidthMeter: BandwidthMeter,
+            mediaPeriodId: MediaSource.MediaPeriodId,
+            timeline: Timeline
+        ): Array<ExoTrackSelection?> {
+            val mode = abrMode
+            if (mode == RNVBufferBasedTrackSelection.Mode.Throughput) {
+                return super.createTrackSelections(definitions, bandwidthMeter, mediaPeriodId, timeline)
+            }
+            val lowBufferUs = abrLowBufferUs
+            val highBufferUs = abrHighBufferUs
+            val phase = if (fastStartDurationMs > 0) fastStart else null
+            return TrackSelectionUtil.createTrackSelectionsForDefinitions(definitions) { definition ->
+                RNVBufferBasedTrackSelection(
+                    definition.group,
+                    definition.tracks,
+                    definition.type,
+                    bandwidthMeter,
+                    mode,
+                    lowBufferUs,
+                    highBufferUs,
+                    phase
+                )
+            }
+        }
+
+        override fun createAdaptiveTrackSelection(
+            group: TrackGroup,
+            tracks: IntArray,
+            type: Int,
+            bandwidthMeter: BandwidthMeter,
+            adaptationCheckpoints: ImmutableList<AdaptationCheckpoint>
+        ): AdaptiveTrackSelection {
+            val currentCache = cache
+            val phase = if (fastStartDurationMs > 0) fastStart else null
+            if (currentCache == null && phase == null) {
+                return super.createAdaptiveTrackSelection(group, tracks, type, bandwidthMeter, adaptationCheckpoints)
+            }
+            return RNVCacheAwareTrackSelection(
+                group,
+                tracks,
+                type,
+                bandwidthMeter,
+                adaptationCheckpoints,
+                currentCache,
+                cacheKeyFactory,
+                bitrateTolerance,
+                if (phase != null) {
+                    FAST_START_MIN_DURATION_FOR_QUALITY_INCREASE_MS
+                } else {
+                    AdaptiveTrackSelection.DEFAULT_MIN_DURATION_FOR_QUALITY_INCREASE_MS.toLong()
+                },
+                phase
+            )
+        }
+    }
+
+    // Indexed like the formats of the selection, updated before each selection
+    private val cachedTracks = BooleanArray(length())
+    private var hasCachedTrack = false
+
+    // State of the fast start phase as of the last update, read by canSelectFormat
+    private var isFastStarting = fastStart?.isActive == true
+
+    override fun updateSelectedTrack(
+        playbackPositionUs: Long,
+        bufferedDurationUs: Long,
+        availableDurationUs: Long,
+        queue: List<MediaChunk>,
+        mediaChunkIterators: Array<MediaChunkIterator>
+    ) {
+        isFastStarting = fastStart?.update(playbackPositionUs, bufferedDurationUs) == true
+        hasCachedTrack = false
+        if (cache != null) {
+            for (i in cachedTracks.indices) {
+                cachedTracks[i] = i < mediaChunkIterators.size && isNextChunkCached(cache, mediaChunkIterators[i])
+                hasCachedTrack = hasCachedTrack || cachedTracks[i]
+            }
+        }
+        super.updateSelectedTrack(playbackPositionUs, bufferedDurationUs, availableDurationUs, queue, mediaChunkIterators)
+    }
+
+    override fun canSelectFormat(format: Format, trackBitrate: Int, effectiveBitrate: Long): Boolean {
+        if (isFastStarting) {
+            // No format passes, the lowest one is selected
+            return false
+        }
+        if (!hasCachedTrack) {
+            return super.canSelectFormat(format, trackBitrate, effectiveBitrate)
+        }
+        val index = indexOf(format)
+        if (index >= 0 && cachedTracks[index]) {
+            return trackBitrate <= effectiveBitrate * (1 + bitrateTolerance)
+        }
+        if (!super.canSelectFormat(format, trackBitrate, effectiveBitrate)) {
+            return false
+        }
+        // Formats are checked from the highest bitrate, leave this one for a slightly lower cached one
+        val lowestPreferredBitrate = trackBitrate * (1 - bitrateTolerance)
+        for (i in cachedTracks.indices) {
+            if (!cachedTracks[i]) continue
+            val cachedBitrate = getFormat(i).bitrate
+            if (cachedBitrate < trackBitrate && cachedBitrate >= lowestPreferredBitrate) {
+                return false
+            }
+        }
+        return true
+    }
+
+    private fun isNextChunkCached(cache: Cache, iterator: MediaChunkIterator): Boolean {
+        if (!iterator.next()) {
+            return false
+        }
+        val dataSpec = iterator.dataSpec
+        // Iterator is shared with the adaptive selection, rewind it for its own lookups
+        iterator.reset()
+        val key = cacheKeyFactory.buildCacheKey(dataSpec)
+        return if (dataSpec.length != C.LENGTH_UNSET.toLong()) {
+            cache.isCached(key, dataSpec.position, dataSpec.length)
+        } else {
+            cache.getCachedLength(key, dataSpec.position, C.LENGTH_UNSET.toLong()) > 0
+        }
+    }
+
+    companion object {
+        const val DEFAULT_BITRATE_TOLERANCE = 0.25f
+
+        // Buffer needed to increase quality after a fast start, instead of the media3 10 s
+        const val FAST_START_MIN_DURATION_FOR_QUALITY_INCREASE_MS = 3000L
+    }
+}
@@ -0,0 +1,256 @@
+package com.brentvatne.exoplayer
+
+import androidx.media3.common.C
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.cache.Cache
+import androidx.media3.datasource.cache.CacheEvictor
+import androidx.media3.datasource.cache.CacheKeyFactory
+import androidx.media3.datasource.cache.CacheSpan
+import java.util.TreeSet
+
+/**
+ * Cache evictor with priority classes, whose byte budget can be changed while the cache is open.
+ * Each cache key belongs to a priority class, and spans at the beginning of pinned keys belong to the pinned class.
+ * When the cache is full, least recently used spans of the lowest class are evicted first, pinned spans last.
+ * Each class can also have its own byte budget, enforced independently.
+ * media3 LeastRecentlyUsedCacheEvictor fixes its budget at construction time, which forces
+ * a cache re-creation (and a new database handle) for every resize.
+ * SimpleCache only notifies listeners per key, so evictions are counted here.
+ * Classes and pins are kept in memory: keys are back in the normal class when the cache is reopened.
+ * Pins are dropped once their key has no cached span left. Keys pinned on behalf of a source (segments of a preload)
+ * are grouped under the source key, unpinning the source key unpins them all.
+ */
+class RNVCacheEvictor(maxBytes: Long, private val stats: RNVCacheStats? = null) : CacheEvictor {
+
+    /** Priority classes, in eviction order */
+    enum class Priority(val value: String) {
+        Low("low"),
+        Normal("normal"),
+        High("high"),
+        Pinned("pinned");
+
+        companion object {
+            @JvmStatic
+            fun fromString(value: String?): Priority = values().firstOrNull { it.value == value } ?: Normal
+        }
+    }
+
+    /**
+     * Key factory assigning the keys it builds to a priority class, and pinning them if requested.
+     * Classes are only raised, a key shared by several sources keeps its highest class.
+     * pinnedBytes is the pinned length of each key, 0 to not pin, C.LENGTH_UNSET to pin whole keys.
+     * pinGroup is the source key the pinned keys are recorded under, null to not group them.
+     */
+    class PriorityCacheKeyFactory(
+        private val upstream: CacheKeyFactory,
+        private val cache: Cache,
+        private val evictor: RNVCacheEvictor,
+        private val priority: Priority,
+        private val pinnedBytes: Long,
+        private val pinGroup: String?
+    ) : CacheKeyFactory {
+        override fun buildCacheKey(dataSpec: DataSpec): String {
+            val key = upstream.buildCacheKey(dataSpec)
+            if (pinnedBytes != 0L) {
+                evictor.pin(cache, key, pinnedBytes, pinGroup)
+            } else if (priority != Priority.Normal) {
+                evictor.raisePriority(cache, key, priority)
+            }
+            return key
+        }
+    }
+
+    @Volatile
+    var maxBytes: Long = maxBytes
+        private set
+
+    // One least recently used set per class, indexed by Priority.ordinal
+    private val leastRecentlyUsed = Array(Priority.values().size) { TreeSet<CacheSpan> { lhs, rhs -> compare(lhs, rhs) } }
+    private val classSizes = LongArray(Priority.values().size)
+    private val classBudgets = LongArray(Priority.values().size) { C.LENGTH_UNSET.toLong() }
+    private val keyPriorities = HashMap<String, Priority>()
+
+    // Key to pinned length: spans starting before it are pinned
+    private val pins = HashMap<String, Long>()
+
+    // Source key to the keys pinned on its behalf, and pinned key to its source key
+    private val pinGroups = HashMap<String, MutableSet<String>>()
+    private val pinnedKeyGroups = HashMap<String, String>()
+    private var currentSize: Long = 0
+
+    override fun requiresCacheSpanTouches(): Boolean = true
+
+    override fun onCacheInitialized() {
+        // Do nothing.
+    }
+
+    override fun onStartFile(cache: Cache, key: String, position: Long, length: Long) {
+        if (length != C.LENGTH_UNSET.toLong()) {
+            evictCache(cache, length)
+        }
+    }
+
+    override fun onSpanAdded(cache: Cache, span: CacheSpan) {
+        val priority = priorityOf(span)
+        leastRecentlyUsed[priority.ordinal].add(span)
+        classSizes[priority.ordinal] += span.length
+        currentSize += span.length
+        evictCache(cache, 0)
+    }
+
+    override fun onSpanRemoved(cache: Cache, span: CacheSpan) {
+        removeSpan(span)
+        // Forget the class and the pin of keys that are no longer cached
+        if ((keyPriorities.containsKey(span.key) || pins.containsKey(span.key)) && cache.getCachedSpans(span.key).isEmpty()) {
+            keyPriorities.remove(span.key)
+            forgetPin(span.key)
+        }
+    }
+
+    override fun onSpanTouched(cache: Cache, oldSpan: CacheSpan, newSpan: CacheSpan) {
+        removeSpan(oldSpan)
+        onSpanAdded(cache, newSpan)
+    }
+
+    /**
+     * Update the byte budget, evicting immediately if the cache is now over budget.
+     * Cache callbacks run while holding the cache lock, so the resize takes the same lock.
+     */
+    fun setMaxBytes(cache: Cache, bytes: Long) {
+        synchronized(cache) {
+            maxBytes = bytes
+            evictCache(cache, 0)
+        }
+    }
+
+    /**
+     * Set the byte budget of a class, on top of the cache budget.
+     * @param bytes budget, C.LENGTH_UNSET for no class budget
+     */
+    fun setClassBudget(cache: Cache, priority: Priority, bytes: Long) {
+        synchronized(cache) {
+            classBudgets[priority.ordinal] = bytes
+            evictCache(cache, 0)
+        }
+    }
+
+    fun getClassSize(priority: Priority): Long = classSizes[priority.ordinal]
+
+    /** Set the class of a key, spans already cached are moved to it */
+    fun setPriority(cache: Cache, key: String, priority: Priority) {
+        synchronized(cache) {
+            if (priority == Priority.Normal) keyPriorities.remove(key) else keyPriorities[key] = priority
+            reclassify(cache, key)
+        }
+    }
+
+    fun raisePriority(cache: Cache, key: String, priority: Priority) {
+        synchronized(cache) {
+            val current = keyPriorities[key] ?: Priority.Normal
+            if (priority > current) {
+                setPriority(cache, key, priority)
+            }
+        }
+    }
+
+    /**
+     * Pin the beginning of a key, so that it is evicted after every unpinned span.
+     * @param bytes pinned length from the beginning of the key, C.LENGTH_UNSET for the whole key
+     * @param group source key to record the pinned key under, null if the key is not pinned on behalf of a source
+     */
+    fun pin(cache: Cache, key: String, bytes: Long, group: String? = null) {
+        synchronized(cache) {
+            if (group != null && group != key) {
+                pinGroups.getOrPut(group) { HashSet() }.add(key)
+                pinnedKeyGroups[key] = group
+            }
+            val pinnedLength = if (bytes == C.LENGTH_UNSET.toLong()) Long.MAX_VALUE else bytes
+            if (pins[key] == pinnedLength) return
+            pins[key] = pinnedLength
+            reclassify(cache, key)
+        }
+    }
+
+    /** Unpin a key, and the keys pinned on its behalf */
+    fun unpin(cache: Cache, key: String) {
+        synchronized(cache) {
+            val keys = pinGroups[key]?.toList().orEmpty() + key
+            for (pinnedKey in keys) {
+                if (forgetPin(pinnedKey)) {
+                    reclassify(cache, pinnedKey)
+                }
+            }
+        }
+    }
+
+    /** @return false if the key was not pinned */
+    private fun forgetPin(key: String): Boolean {
+        pinnedKeyGroups.remove(key)?.let { group ->
+            val keys = pinGroups[group]
+            keys?.remove(key)
+            if (keys.isNullOrEmpty()) pinGroups.remove(group)
+        }
+        return pins.remove(key) != null
+    }
+
+    private fun priorityOf(span: CacheSpan): Priority {
+        val pinnedLength = pins[span.key]
+        if (pinnedLength != null && span.position < pinnedLength) {
+            return Priority.Pinned
+        }
+        return keyPriorities[span.key] ?: Priority.Normal
+    }
+
+    /** @return false if the span is not tracked */
+    private fun removeSpan(span: CacheSpan): Boolean {
+        for (priority in Priority.values()) {
+            if (leastRecentlyUsed[priority.ordinal].remove(span)) {
+                classSizes[priority.ordinal] -= span.length
+                currentSize -= span.length
+                return true
+            }
+        }
+        return false
+    }
+
+    private fun reclassify(cache: Cache, key: String) {
+        for (span in cache.getCachedSpans(key)) {
+            if (!removeSpan(span)) continue
+            val priority = priorityOf(span)
+            leastRecentlyUsed[priority.ordinal].add(span)
+            classSizes[priority.ordinal] += span.length
+            currentSize += span.length
+        }
+        evictCache(cache, 0)
+    }
+
+    private fun evictCache(cache: Cache, requiredSpace: Long) {
+        for (priority in Priority.values()) {
+            val budget = classBudgets[priority.ordinal]
+            if (budget == C.LENGTH_UNSET.toLong()) continue
+            val spans = leastRecentlyUsed[priority.ordinal]
+            while (classSizes[priority.ordinal] > budget && !spans.isEmpty()) {
+                evict(cache, spans.first())
+            }
+        }
+        while (currentSize + requiredSpace > maxBytes) {
+            val spans = leastRecentlyUsed.firstOrNull { !it.isEmpty() } ?: return
+            evict(cache, spans.first())
+        }
+    }
+
+    private fun evict(cache: Cache, span: CacheSpan) {
+        // removeSpan calls back onSpanRemoved, which updates the sizes
+        cache.removeSpan(span)
+        stats?.onEvicted(span.length)
+    }
+
+    private fun compare(lhs: CacheSpan, rhs: CacheSpan): Int {
+        val lastTouchTimestampDelta = lhs.lastTouchTimestamp - rhs.lastTouchTimestamp
+        if (lastTouchTimestampDelta == 0L) {
+            // Use the standard compareTo method as a tie-break.
+            return lhs.compareTo(rhs)
+        }
+        return if (lhs.lastTouchTimestamp < rhs.lastTouchTimestamp) -1 else 1
+    }
+}
@@ -0,0 +1,70 @@
+package com.brentvatne.exoplayer
+
+import android.net.Uri
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.cache.CacheKeyFactory
+import com.brentvatne.common.api.BufferConfig
+import com.brentvatne.common.api.Source
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.react.ReactNativeVideoManager
+import java.util.regex.Pattern
+import java.util.regex.PatternSyntaxException
+
+/**
+ * Cache key factory normalizing request uris, so that the same bytes requested with different
+ * session tokens map to one cache entry.
+ */
+class RNVCacheKeyFactory(private val config: BufferConfig.CacheKey) : CacheKeyFactory {
+    private val pattern: Pattern? = config.regex?.takeIf { it.isNotEmpty() }?.let {
+        try {
+            Pattern.compile(it)
+        } catch (e: PatternSyntaxException) {
+            DebugLog.e(TAG, "invalid cache key regex $it: ${e.message}")
+            null
+        }
+    }
+    private val strippedParams = config.stripQueryParams.toHashSet()
+
+    override fun buildCacheKey(dataSpec: DataSpec): String {
+        // An explicit key always wins, it is set by the app or by media3 itself
+        dataSpec.key?.let { return it }
+        return buildCacheKey(dataSpec.uri)
+    }
+
+    fun buildCacheKey(uri: Uri): String {
+        val uriString = uri.toString()
+        if (pattern != null) {
+            val matcher = pattern.matcher(uriString)
+            if (matcher.find()) {
+                return if (matcher.groupCount() > 0 && matcher.group(1) != null) matcher.group(1)!! else matcher.group()
+            }
+            return uriString
+        }
+        if (strippedParams.isEmpty() || uri.isOpaque || uri.encodedQuery == null) {
+            return uriString
+        }
+        val builder = uri.buildUpon().clearQuery()
+        for (param in uri.queryParameterNames) {
+            if (param in strippedParams) continue
+            for (value in uri.getQueryParameters(param)) {
+                builder.appendQueryParameter(param, value)
+            }
+        }
+        return builder.build().toString()
+    }
+
+    companion object {
+        private const val TAG = "RNVCacheKeyFactory"
+
+        /**
+         * Cache key factory to use for the source: the plugin one if any, then the one configured in bufferConfig.
+         * @return null to use the media3 default key (the full uri)
+         */
+        @JvmStatic
+        fun fromSource(source: Source): CacheKeyFactory? {
+            ReactNativeVideoManager.getInstance().overrideCacheKeyFactory(source)?.let { return it }
+            val config = source.bufferConfig.cacheKey
+            return if (config.isSet()) RNVCacheKeyFactory(config) else null
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.brentvatne.exoplayer
+
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.TransferListener
+import androidx.media3.datasource.cache.CacheDataSource
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Cumulative traffic counters of one cache namespace.
+ * Counters outlive the cache itself, so that closing and reopening a namespace does not reset them.
+ */
+class RNVCacheStats :
+    CacheDataSource.EventListener,
+    TransferListener {
+
+    /** Snapshot reported to JS by VideoManagerModule.getCacheStats and the onCacheStats event */
+    data class Snapshot(
+        val namespace: String,
+        val cacheReadBytes: Long,
+        val upstreamReadBytes: Long,
+        val ignoredOnError: Long,
+        val ignoredUnsetLength: Long,
+        val evictions: Long,
+        val evictedBytes: Long,
+        val usedBytes: Long,
+        val maxBytes: Long
+    ) {
+        /** Share of the bytes served by the cache, 0 if nothing has been read yet */
+        val hitRatio: Double
+            get() {
+                val total = cacheReadBytes + upstreamReadBytes
+                return if (total > 0) cacheReadBytes.toDouble() / total else 0.0
+            }
+    }
+
+    private val cacheReadBytes = AtomicLong()
+    private val upstreamReadBytes = AtomicLong()
+    private val ignoredOnError = AtomicLong()
+    private val ignoredUnsetLength = AtomicLong()
+    private val evictions = AtomicLong()
+    private val evictedBytes = AtomicLong()
+
+    override fun onCachedBytesRead(cacheSizeBytes: Long, cachedBytesRead: Long) {
+        cacheReadBytes.addAndGet(cachedBytesRead)
+    }
+
+    override fun onCacheIgnored(reason: Int) {
+        when (reason) {
+            CacheDataSource.CACHE_IGNORED_REASON_ERROR -> ignoredOnError.incrementAndGet()
+            CacheDataSource.CACHE_IGNORED_REASON_UNSET_LENGTH -> ignoredUnsetLength.incrementAndGet()
+        }
+    }
+
+    override fun onTransferInitializing(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        // Do nothing.
+    }
+
+    override fun onTransferStart(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        // Do nothing.
+    }
+
+    override fun onBytesTransferred(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean, bytesTransferred: Int) {
+        upstreamReadBytes.addAndGet(bytesTransferred.toLong())
+    }
+
+    override fun onTransferEnd(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        // Do nothing.
+    }
+
+    fun onEvicted(bytes: Long) {
+        evictions.incrementAndGet()
+        evictedBytes.addAndGet(bytes)
+    }
+
+    fun snapshot(namespace: String, usedBytes: Long, maxBytes: Long) =
+        Snapshot(
+            namespace,
+            cacheReadBytes.get(),
+            upstreamReadBytes.get(),
+            ignoredOnError.get(),
+            ignoredUnsetLength.get(),
+            evictions.get(),
+            evictedBytes.get(),
+            usedBytes,
+            maxBytes
+        )
+
+    /**
+     * Wrap upstream factory so that the bytes it reads (cache misses and bypassed requests) are counted.
+     */
+    fun wrapUpstream(factory: DataSource.Factory): DataSource.Factory =
+        DataSource.Factory {
+            factory.createDataSource().apply { addTransferListener(this@RNVCacheStats) }
+        }
+}
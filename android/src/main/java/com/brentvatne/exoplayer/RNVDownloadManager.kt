@@ -0,0 +1,258 @@
+package com.brentvatne.exoplayer
+
+import android.content.ComponentName
+import android.content.Context
+import android.content.pm.PackageManager
+import android.net.Uri
+import androidx.annotation.WorkerThread
+import androidx.media3.common.util.Util
+import androidx.media3.database.StandaloneDatabaseProvider
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DefaultDataSource
+import androidx.media3.datasource.cache.CacheDataSource
+import androidx.media3.datasource.cache.NoOpCacheEvictor
+import androidx.media3.datasource.cache.SimpleCache
+import androidx.media3.datasource.okhttp.OkHttpDataSource
+import androidx.media3.exoplayer.offline.DefaultDownloadIndex
+import androidx.media3.exoplayer.offline.DefaultDownloaderFactory
+import androidx.media3.exoplayer.offline.Download
+import androidx.media3.exoplayer.offline.DownloadManager
+import androidx.media3.exoplayer.offline.DownloadRequest
+import androidx.media3.exoplayer.offline.DownloadService
+import com.brentvatne.common.toolbox.DebugLog
+import com.facebook.react.modules.network.OkHttpClientProvider
+import okhttp3.Call
+import org.json.JSONException
+import org.json.JSONObject
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Process wide owner of the offline downloads.
+ * Downloads are stored in their own cache, never evicted and kept in the app files, with a persistent index.
+ * Requests go through RNVDownloadService when the app declares it in its manifest, so that downloads continue
+ * in the background, otherwise they are run by the download manager while the app process is alive.
+ * The download manager must be created on the main thread, its listeners are called on it.
+ * Completed downloads are kept in memory by uri, loaded from the index on a background thread and then
+ * updated by the download manager listener, so that players look them up without disk access.
+ */
+object RNVDownloadManager {
+    private const val TAG = "RNVDownloadManager"
+    private const val DOWNLOAD_FOLDER = "RNVDownloads"
+
+    const val DEFAULT_MAX_PARALLEL_DOWNLOADS = 2
+
+    /** Stop reason of the downloads paused by the app */
+    const val STOP_REASON_PAUSED = 1
+
+    private var downloadManager: DownloadManager? = null
+    private var downloadCache: SimpleCache? = null
+
+    // Read only index of the background lookups, the download manager writes through its own
+    private var readIndex: DefaultDownloadIndex? = null
+
+    private val completedDownloads = ConcurrentHashMap<Uri, Download>()
+
+    @Volatile
+    private var completedDownloadsLoaded = false
+
+    private val completedDownloadsListener = object : DownloadManager.Listener {
+        override fun onDownloadChanged(downloadManager: DownloadManager, download: Download, finalException: Exception?) {
+            if (download.state == Download.STATE_COMPLETED) {
+                completedDownloads[download.request.uri] = download
+            } else {
+                forgetCompletedDownload(download)
+            }
+        }
+
+        override fun onDownloadRemoved(downloadManager: DownloadManager, download: Download) {
+            forgetCompletedDownload(download)
+        }
+    }
+    private var serviceDeclared: Boolean? = null
+
+    var maxParallelDownloads = DEFAULT_MAX_PARALLEL_DOWNLOADS
+        @Synchronized set(value) {
+            field = value.coerceAtLeast(1)
+            downloadManager?.maxParallelDownloads = field
+        }
+
+    @JvmStatic
+    @Synchronized
+    fun getDownloadManager(context: Context): DownloadManager {
+        downloadManager?.let { return it }
+        val appContext = context.applicationContext
+        val cache = getDownloadCache(appContext)
+        // Request headers are stored with each request, so that resumed downloads use them too
+        val manager = DownloadManager(appContext, DefaultDownloadIndex(getDatabaseProvider(appContext))) { request ->
+            DefaultDownloaderFactory(buildWriteDataSourceFactory(appContext, cache, decodeHeaders(request.data))) { it.run() }
+                .createDownloader(request)
+        }
+        manager.maxParallelDownloads = maxParallelDownloads
+        manager.addListener(completedDownloadsListener)
+        manager.resumeDownloads()
+        downloadManager = manager
+        DebugLog.d(TAG, "download manager created in ${appContext.filesDir}/$DOWNLOAD_FOLDER")
+        return manager
+    }
+
+    /**
+     * Factory reading the download cache, upstream factory is only used for data that has not been downloaded.
+     */
+    @JvmStatic
+    fun buildReadOnlyDataSourceFactory(context: Context, upstreamFactory: DataSource.Factory): DataSource.Factory {
+        return CacheDataSource.Factory()
+            .setCache(getDownloadCache(context.applicationContext))
+            .setUpstreamDataSourceFactory(upstreamFactory)
+            .setCacheWriteDataSinkFactory(null)
+    }
+
+    /**
+     * Factory loading manifests for the download track selection, with the headers of the source.
+     */
+    @JvmStatic
+    fun buildUpstreamDataSourceFactory(context: Context, requestHeaders: Map<String, String>?): DataSource.Factory {
+        val httpDataSourceFactory = OkHttpDataSource.Factory(OkHttpClientProvider.getOkHttpClient() as Call.Factory)
+        if (requestHeaders != null) {
+            httpDataSourceFactory.setDefaultRequestProperties(requestHeaders)
+        }
+        if (requestHeaders == null || !requestHeaders.containsKey("User-Agent")) {
+            httpDataSourceFactory.setUserAgent(Util.getUserAgent(context, context.packageName))
+        }
+        return DefaultDataSource.Factory(context, httpDataSourceFactory)
+    }
+
+    /**
+     * Load the completed downloads from the index, once per process.
+     * Does not open the index if the app never downloaded anything.
+     */
+    @JvmStatic
+    @WorkerThread
+    fun loadCompletedDownloads(context: Context) {
+        if (completedDownloadsLoaded) return
+        synchronized(completedDownloads) {
+            if (completedDownloadsLoaded) return
+            val appContext = context.applicationContext
+            if (File(appContext.filesDir, DOWNLOAD_FOLDER).exists()) {
+                getReadIndex(appContext).getDownloads(Download.STATE_COMPLETED).use { cursor ->
+                    while (cursor.moveToNext()) {
+                        // The listener may already have a more recent state
+                        completedDownloads.putIfAbsent(cursor.download.request.uri, cursor.download)
+                    }
+                }
+            }
+            completedDownloadsLoaded = true
+        }
+    }
+
+    /**
+     * @return the completed download of the uri, null if there is none or if they are not loaded yet.
+     * Never accesses the disk, see loadCompletedDownloads.
+     */
+    @JvmStatic
+    fun getCompletedDownload(uri: Uri): Download? = completedDownloads[uri]
+
+    /** Read from the index without the download manager, blocking */
+    @JvmStatic
+    @WorkerThread
+    fun getDownload(context: Context, id: String): Download? = getReadIndex(context.applicationContext).getDownload(id)
+
+    /** Read from the index without the download manager, blocking */
+    @JvmStatic
+    @WorkerThread
+    fun getDownloads(context: Context): List<Download> {
+        val downloads = ArrayList<Download>()
+        getReadIndex(context.applicationContext).getDownloads().use { cursor ->
+            while (cursor.moveToNext()) {
+                downloads.add(cursor.download)
+            }
+        }
+        return downloads
+    }
+
+    /** Start the download, or update the tracks of an existing one */
+    @JvmStatic
+    fun addDownload(context: Context, request: DownloadRequest) {
+        if (isServiceDeclared(context)) {
+            DownloadService.sendAddDownload(context, RNVDownloadService::class.java, request, false)
+        } else {
+            getDownloadManager(context).addDownload(request)
+        }
+    }
+
+    /** Remove the download and its data */
+    @JvmStatic
+    fun removeDownload(context: Context, id: String) {
+        if (isServiceDeclared(context)) {
+            DownloadService.sendRemoveDownload(context, RNVDownloadService::class.java, id, false)
+        } else {
+            getDownloadManager(context).removeDownload(id)
+        }
+    }
+
+    /**
+     * Pause or resume one download, data already downloaded is kept.
+     */
+    @JvmStatic
+    fun setPaused(context: Context, id: String, paused: Boolean) {
+        val stopReason = if (paused) STOP_REASON_PAUSED else Download.STOP_REASON_NONE
+        if (isServiceDeclared(context)) {
+            DownloadService.sendSetStopReason(context, RNVDownloadService::class.java, id, stopReason, false)
+        } else {
+            getDownloadManager(context).setStopReason(id, stopReason)
+        }
+    }
+
+    @JvmStatic
+    fun encodeHeaders(requestHeaders: Map<String, String>): ByteArray? =
+        if (requestHeaders.isEmpty()) null else JSONObject(requestHeaders).toString().toByteArray(Charsets.UTF_8)
+
+    private fun decodeHeaders(data: ByteArray?): Map<String, String>? {
+        if (data == null || data.isEmpty()) return null
+        return try {
+            val json = JSONObject(String(data, Charsets.UTF_8))
+            json.keys().asSequence().associateWith { json.getString(it) }
+        } catch (e: JSONException) {
+            DebugLog.w(TAG, "ignoring download data: ${e.message}")
+            null
+        }
+    }
+
+    private fun buildWriteDataSourceFactory(context: Context, cache: SimpleCache, requestHeaders: Map<String, String>?): CacheDataSource.Factory =
+        CacheDataSource.Factory()
+            .setCache(cache)
+            .setUpstreamDataSourceFactory(buildUpstreamDataSourceFactory(context, requestHeaders))
+
+    private fun forgetCompletedDownload(download: Download) {
+        val uri = download.request.uri
+        if (completedDownloads[uri]?.request?.id == download.request.id) {
+            completedDownloads.remove(uri)
+        }
+    }
+
+    // Shared with the media caches, both indexes live in the same database file
+    private fun getDatabaseProvider(context: Context): StandaloneDatabaseProvider = RNVSimpleCache.getDatabaseProvider(context)
+
+    @Synchronized
+    private fun getReadIndex(context: Context): DefaultDownloadIndex =
+        readIndex ?: DefaultDownloadIndex(getDatabaseProvider(context)).also { readIndex = it }
+
+    // SimpleCache loads its index on its own thread, the first read waits for it
+    @Synchronized
+    private fun getDownloadCache(context: Context): SimpleCache =
+        downloadCache ?: SimpleCache(File(context.filesDir, DOWNLOAD_FOLDER), NoOpCacheEvictor(), getDatabaseProvider(context))
+            .also { downloadCache = it }
+
+    @Synchronized
+    private fun isServiceDeclared(context: Context): Boolean {
+        serviceDeclared?.let { return it }
+        val declared = try {
+            context.packageManager.getServiceInfo(ComponentName(context, RNVDownloadService::class.java), 0)
+            true
+        } catch (e: PackageManager.NameNotFoundException) {
+            false
+        }
+        serviceDeclared = declared
+        return declared
+    }
+}
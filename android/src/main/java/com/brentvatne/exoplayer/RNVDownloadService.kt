@@ -0,0 +1,44 @@
+package com.brentvatne.exoplayer
+
+import android.app.Notification
+import androidx.media3.exoplayer.offline.Download
+import androidx.media3.exoplayer.offline.DownloadManager
+import androidx.media3.exoplayer.offline.DownloadNotificationHelper
+import androidx.media3.exoplayer.offline.DownloadService
+import androidx.media3.exoplayer.scheduler.Scheduler
+import com.brentvatne.react.R
+
+/**
+ * Service running the offline downloads in the background, with a progress notification.
+ * Optional, the app declares it in its manifest to keep downloading while in background.
+ */
+class RNVDownloadService :
+    DownloadService(
+        FOREGROUND_NOTIFICATION_ID,
+        DownloadService.DEFAULT_FOREGROUND_NOTIFICATION_UPDATE_INTERVAL,
+        NOTIFICATION_CHANNEL_ID,
+        R.string.download_notification_channel_name,
+        0
+    ) {
+
+    private val notificationHelper by lazy { DownloadNotificationHelper(this, NOTIFICATION_CHANNEL_ID) }
+
+    override fun getDownloadManager(): DownloadManager = RNVDownloadManager.getDownloadManager(this)
+
+    override fun getScheduler(): Scheduler? = null
+
+    override fun getForegroundNotification(downloads: MutableList<Download>, notMetRequirements: Int): Notification =
+        notificationHelper.buildProgressNotification(
+            this,
+            android.R.drawable.stat_sys_download,
+            null,
+            null,
+            downloads,
+            notMetRequirements
+        )
+
+    companion object {
+        private const val FOREGROUND_NOTIFICATION_ID = 9998
+        private const val NOTIFICATION_CHANNEL_ID = "RNV_DOWNLOADS"
+    }
+}
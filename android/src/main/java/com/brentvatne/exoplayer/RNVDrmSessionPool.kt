@@ -0,0 +1,169 @@
+package com.brentvatne.exoplayer
+
+import android.media.NotProvisionedException
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import androidx.media3.common.Format
+import androidx.media3.common.util.Util
+import androidx.media3.datasource.HttpDataSource
+import androidx.media3.exoplayer.analytics.PlayerId
+import androidx.media3.exoplayer.drm.DefaultDrmSessionManager
+import androidx.media3.exoplayer.drm.DrmSession
+import androidx.media3.exoplayer.drm.DrmSessionEventListener
+import androidx.media3.exoplayer.drm.DrmSessionManager
+import androidx.media3.exoplayer.drm.ExoMediaDrm
+import androidx.media3.exoplayer.drm.FrameworkMediaDrm
+import androidx.media3.exoplayer.drm.HttpMediaDrmCallback
+import com.brentvatne.common.api.DRMProps
+import com.brentvatne.common.toolbox.DebugLog
+import java.util.UUID
+
+/**
+ * DRM framework instances provisioned and opened ahead of playback, so that the MediaDrm instance is already open
+ * and the device already provisioned when a protected source starts.
+ * A warmed instance is claimed once, by the first player of the same DRM scheme, which builds its session manager on it.
+ * Only MediaDrm instances are pooled: they can be released from any thread, unlike session managers bound to the playback thread.
+ * Unclaimed instances are released after WARM_UP_TTL_MS, at most MAX_ENTRIES_PER_SCHEME are kept per DRM scheme.
+ */
+object RNVDrmSessionPool {
+    private const val TAG = "RNVDrmSessionPool"
+
+    const val MAX_ENTRIES_PER_SCHEME = 2
+    const val WARM_UP_TTL_MS = 60_000L
+
+    private class Entry(val uuid: UUID, val mediaDrm: FrameworkMediaDrm, val createdAtMs: Long)
+
+    /**
+     * Session manager built on a claimed MediaDrm instance. The reference taken by the warm-up is dropped once the player
+     * prepared the manager, which acquires its own reference, so that the MediaDrm instance stays open in between.
+     */
+    class WarmDrmSessionManager(private val delegate: DrmSessionManager, private val mediaDrm: ExoMediaDrm) : DrmSessionManager {
+        private var warmUpReleased = false
+
+        override fun setPlayer(playbackLooper: Looper, playerId: PlayerId) = delegate.setPlayer(playbackLooper, playerId)
+
+        override fun prepare() {
+            delegate.prepare()
+            releaseWarmUp()
+        }
+
+        override fun release() = delegate.release()
+
+        override fun preacquireSession(
+            eventDispatcher: DrmSessionEventListener.EventDispatcher?,
+            format: Format
+        ): DrmSessionManager.DrmSessionReference = delegate.preacquireSession(eventDispatcher, format)
+
+        override fun acquireSession(eventDispatcher: DrmSessionEventListener.EventDispatcher?, format: Format): DrmSession? =
+            delegate.acquireSession(eventDispatcher, format)
+
+        override fun getCryptoType(format: Format): Int = delegate.getCryptoType(format)
+
+        /** Drop the warm-up reference, also called by the view if the player never prepared the manager */
+        @Synchronized
+        fun releaseWarmUp() {
+            if (warmUpReleased) return
+            warmUpReleased = true
+            mediaDrm.release()
+        }
+    }
+
+    private val entries = ArrayList<Entry>()
+    private val handler = Handler(Looper.getMainLooper())
+
+    /**
+     * Provision the device if needed, then open a MediaDrm instance for the DRM scheme of the props.
+     * Blocking, must be called from a background thread.
+     * @return false if the DRM scheme is not supported
+     */
+    fun prepare(drmProps: DRMProps, httpDataSourceFactory: HttpDataSource.Factory): Boolean {
+        val uuid = drmProps.drmType?.let { Util.getDrmUuid(it) } ?: return false
+        synchronized(this) {
+            releaseExpired()
+            if (entries.any { it.uuid == uuid }) {
+                return true
+            }
+        }
+        return try {
+            val startMs = SystemClock.elapsedRealtime()
+            // Kept open until claimed or expired
+            val mediaDrm = FrameworkMediaDrm.newInstance(uuid)
+            try {
+                provision(uuid, mediaDrm, httpDataSourceFactory)
+            } catch (e: Exception) {
+                mediaDrm.release()
+                throw e
+            }
+            add(Entry(uuid, mediaDrm, SystemClock.elapsedRealtime()))
+            DebugLog.d(TAG, "prepared ${drmProps.drmType} in ${SystemClock.elapsedRealtime() - startMs} ms")
+            true
+        } catch (e: Exception) {
+            DebugLog.w(TAG, "failed to prepare ${drmProps.drmType}: ${e.message}")
+            false
+        }
+    }
+
+    /**
+     * @return a session manager built on a warmed MediaDrm instance of the DRM scheme, null if none.
+     * It requests its licenses with the DRM props and the data source factory of the player.
+     */
+    @JvmStatic
+    fun claim(uuid: UUID, drmProps: DRMProps, httpDataSourceFactory: HttpDataSource.Factory): WarmDrmSessionManager? {
+        val entry = synchronized(this) {
+            releaseExpired()
+            entries.firstOrNull { it.uuid == uuid }?.also { entries.remove(it) }
+        } ?: return null
+        val manager = DefaultDrmSessionManager.Builder()
+            .setUuidAndExoMediaDrmProvider(uuid, ExoMediaDrm.AppManagedProvider(entry.mediaDrm))
+            .setKeyRequestParameters(null)
+            .setMultiSession(drmProps.multiDrm)
+            .build(DRMManager.buildDrmCallback(drmProps, httpDataSourceFactory))
+        DebugLog.d(TAG, "claimed ${drmProps.drmType} media drm")
+        return WarmDrmSessionManager(manager, entry.mediaDrm)
+    }
+
+    /** Release every unclaimed MediaDrm instance */
+    @Synchronized
+    fun clear() {
+        entries.forEach { it.mediaDrm.release() }
+        entries.clear()
+    }
+
+    @Synchronized
+    private fun add(entry: Entry) {
+        entries.add(entry)
+        val sameScheme = entries.filter { it.uuid == entry.uuid }
+        if (sameScheme.size > MAX_ENTRIES_PER_SCHEME) {
+            // Oldest entries come first
+            sameScheme.take(sameScheme.size - MAX_ENTRIES_PER_SCHEME).forEach {
+                it.mediaDrm.release()
+                entries.remove(it)
+            }
+        }
+        handler.postDelayed({ synchronized(this) { releaseExpired() } }, WARM_UP_TTL_MS)
+    }
+
+    private fun releaseExpired() {
+        val now = SystemClock.elapsedRealtime()
+        val expired = entries.filter { now - it.createdAtMs >= WARM_UP_TTL_MS }
+        expired.forEach { it.mediaDrm.release() }
+        entries.removeAll(expired)
+    }
+
+    /**
+     * Provisioning happens once per device and DRM scheme, on the first session opening.
+     * Opening a session here moves it out of the playback startup.
+     */
+    private fun provision(uuid: UUID, mediaDrm: FrameworkMediaDrm, httpDataSourceFactory: HttpDataSource.Factory) {
+        val sessionId = try {
+            mediaDrm.openSession()
+        } catch (e: NotProvisionedException) {
+            DebugLog.d(TAG, "provisioning $uuid")
+            val response = HttpMediaDrmCallback(null, httpDataSourceFactory).executeProvisionRequest(uuid, mediaDrm.provisionRequest)
+            mediaDrm.provideProvisionResponse(response)
+            mediaDrm.openSession()
+        }
+        mediaDrm.closeSession(sessionId)
+    }
+}
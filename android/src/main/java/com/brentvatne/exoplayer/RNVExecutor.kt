@@ -0,0 +1,165 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import com.brentvatne.common.toolbox.DebugLog
+import java.util.Collections
+import java.util.IdentityHashMap
+import java.util.concurrent.Callable
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import java.util.concurrent.PriorityBlockingQueue
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Bounded executor running the background work of the players (DRM setup, offline licenses, download index reads).
+ * Threads are created on demand and time out when idle, so an idle app keeps no thread.
+ * Pending tasks run by priority, then in submission order.
+ * Tasks are owned by a view, which cancels all of them when it is dropped.
+ */
+class RNVExecutor(maxThreads: Int = DEFAULT_MAX_THREADS) {
+
+    /** Task priorities, highest first */
+    enum class Priority {
+        DrmSetup,
+        OfflineLicense,
+        DownloadIndex
+    }
+
+    /** Snapshot of the executor, times are averages over the completed tasks */
+    data class Stats(
+        val queued: Int,
+        val running: Int,
+        val maxThreads: Int,
+        val completed: Long,
+        val cancelled: Long,
+        val rejected: Long,
+        val averageWaitMs: Double,
+        val maxWaitMs: Long,
+        val averageRunMs: Double
+    )
+
+    private inner class Task<T>(val owner: Any, val priority: Priority, callable: Callable<T>) :
+        FutureTask<T>(callable),
+        Comparable<Task<*>> {
+        val sequence = sequenceGenerator.getAndIncrement()
+        val submitTimeMs = SystemClock.elapsedRealtime()
+
+        override fun run() {
+            // Cancelled while being dequeued
+            if (isCancelled) return
+            val startTimeMs = SystemClock.elapsedRealtime()
+            val waitMs = startTimeMs - submitTimeMs
+            totalWaitMs.addAndGet(waitMs)
+            maxWaitMs.accumulateAndGet(waitMs) { a, b -> maxOf(a, b) }
+            super.run()
+            totalRunMs.addAndGet(SystemClock.elapsedRealtime() - startTimeMs)
+            completed.incrementAndGet()
+        }
+
+        override fun done() {
+            if (isCancelled) {
+                cancelled.incrementAndGet()
+            }
+            untrack(this)
+        }
+
+        override fun compareTo(other: Task<*>): Int {
+            if (priority != other.priority) {
+                return priority.compareTo(other.priority)
+            }
+            return sequence.compareTo(other.sequence)
+        }
+    }
+
+    private val sequenceGenerator = AtomicLong()
+    private val completed = AtomicLong()
+    private val cancelled = AtomicLong()
+    private val rejected = AtomicLong()
+    private val totalWaitMs = AtomicLong()
+    private val maxWaitMs = AtomicLong()
+    private val totalRunMs = AtomicLong()
+
+    private val tasksByOwner = IdentityHashMap<Any, MutableSet<Task<*>>>()
+
+    private val executor = ThreadPoolExecutor(
+        maxThreads,
+        maxThreads,
+        KEEP_ALIVE_SECONDS,
+        TimeUnit.SECONDS,
+        PriorityBlockingQueue(),
+        object : ThreadFactory {
+            private val threadCount = AtomicInteger()
+            override fun newThread(runnable: Runnable): Thread = Thread(runnable, "RNVExecutor-${threadCount.incrementAndGet()}")
+        }
+    ).apply { allowCoreThreadTimeOut(true) }
+
+    /**
+     * Queue a task on behalf of its owner.
+     * @return future of the task, already cancelled if the executor rejected it
+     */
+    fun <T> submit(owner: Any, priority: Priority, callable: Callable<T>): Future<T> {
+        val task = Task(owner, priority, callable)
+        synchronized(tasksByOwner) {
+            tasksByOwner.getOrPut(owner) { Collections.newSetFromMap(IdentityHashMap()) }.add(task)
+        }
+        try {
+            // execute, not submit: the queue needs the comparable task itself
+            executor.execute(task)
+        } catch (e: RejectedExecutionException) {
+            DebugLog.w(TAG, "task rejected: ${e.message}")
+            rejected.incrementAndGet()
+            task.cancel(false)
+        }
+        return task
+    }
+
+    fun execute(owner: Any, priority: Priority, runnable: Runnable): Future<*> = submit(owner, priority, Callable { runnable.run() })
+
+    /**
+     * Cancel the tasks of an owner: pending ones are dropped, running ones are left to complete
+     * and must check their own state before publishing results.
+     */
+    fun cancelAll(owner: Any) {
+        val tasks = synchronized(tasksByOwner) { tasksByOwner.remove(owner)?.toList() } ?: return
+        tasks.forEach {
+            it.cancel(false)
+            executor.remove(it)
+        }
+    }
+
+    fun getStats(): Stats {
+        val completedCount = completed.get()
+        return Stats(
+            executor.queue.size,
+            executor.activeCount,
+            executor.maximumPoolSize,
+            completedCount,
+            cancelled.get(),
+            rejected.get(),
+            if (completedCount > 0) totalWaitMs.get().toDouble() / completedCount else 0.0,
+            maxWaitMs.get(),
+            if (completedCount > 0) totalRunMs.get().toDouble() / completedCount else 0.0
+        )
+    }
+
+    private fun untrack(task: Task<*>) {
+        synchronized(tasksByOwner) {
+            val tasks = tasksByOwner[task.owner] ?: return
+            tasks.remove(task)
+            if (tasks.isEmpty()) {
+                tasksByOwner.remove(task.owner)
+            }
+        }
+    }
+
+    companion object {
+        private const val TAG = "RNVExecutor"
+        const val DEFAULT_MAX_THREADS = 4
+        private const val KEEP_ALIVE_SECONDS = 30L
+    }
+}
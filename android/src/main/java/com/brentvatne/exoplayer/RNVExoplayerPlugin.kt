@@ -2,6 +2,7 @@ package com.brentvatne.exoplayer
 
 import androidx.media3.common.MediaItem
 import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.cache.CacheKeyFactory
 import androidx.media3.exoplayer.ExoPlayer
 import androidx.media3.exoplayer.drm.DrmSessionManager
 import androidx.media3.exoplayer.source.MediaSource
@@ -66,6 +67,25 @@ interface RNVExoplayerPlugin : RNVPlugin {
      */
     fun shouldDisableCache(source: Source): Boolean = false
 
+    /**
+     * Optional function that allows the plugin to provide the cache key factory used for a given video source,
+     * for example to remove session tokens from the urls.
+     * It takes precedence over the bufferConfig cacheKey configuration.
+     * @param source The video source being loaded.
+     * @return A custom [CacheKeyFactory] if override is needed, or null to use default.
+     */
+    fun overrideCacheKeyFactory(source: Source): CacheKeyFactory? = null
+
+    /**
+     * Optional function called once per source with the duration of its startup phases,
+     * when the first frame is rendered and onVideoLoad has been sent.
+     * It is called on the main thread.
+     * @param id: a random string identifying the player
+     * @param source The video source that started.
+     * @param metrics Phases reached, in ms since the source was set.
+     */
+    fun onStartupMetrics(id: String, source: Source, metrics: RNVStartupMetrics.Snapshot) {}
+
     /**
      * Function called when a new player is created
      * @param id: a random string identifying the player
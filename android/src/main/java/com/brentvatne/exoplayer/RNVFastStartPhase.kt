@@ -0,0 +1,42 @@
+package com.brentvatne.exoplayer
+
+import androidx.media3.common.C
+
+/**
+ * Fast start phase of the source being prepared: the lowest rendition is selected until a duration is loaded from the start position.
+ * Held by the track selection factory and shared by every selection it builds, so that the selections of later periods
+ * or of a re-selection do not start it again. Armed by the view when it prepares a source, disarmed once the duration is loaded.
+ */
+class RNVFastStartPhase {
+    @Volatile
+    private var durationUs = 0L
+
+    @Volatile
+    private var startPositionUs = C.TIME_UNSET
+
+    /** Whether the lowest rendition is to be selected */
+    @Volatile
+    var isActive = false
+        private set
+
+    /** @param durationMs media duration loaded at the lowest rendition, 0 to disable */
+    fun arm(durationMs: Long) {
+        durationUs = durationMs * 1000
+        startPositionUs = C.TIME_UNSET
+        isActive = durationUs > 0
+    }
+
+    /**
+     * Update the phase from a selection, on the playback thread.
+     * @return whether the lowest rendition is to be selected
+     */
+    fun update(playbackPositionUs: Long, bufferedDurationUs: Long): Boolean {
+        if (!isActive) return false
+        if (startPositionUs == C.TIME_UNSET) {
+            startPositionUs = playbackPositionUs
+        }
+        // Ends once, a seek back does not start it again
+        isActive = playbackPositionUs + bufferedDurationUs - startPositionUs < durationUs
+        return isActive
+    }
+}
@@ -0,0 +1,155 @@
+package com.brentvatne.exoplayer
+
+import android.app.ActivityManager
+import android.content.Context
+import androidx.media3.common.Timeline
+import androidx.media3.exoplayer.DefaultLoadControl
+import androidx.media3.exoplayer.source.MediaSource
+import androidx.media3.exoplayer.upstream.DefaultAllocator
+import com.brentvatne.common.api.BufferConfig
+import com.brentvatne.common.api.BufferingStrategy
+import com.brentvatne.react.ReactNativeVideoManager
+import kotlin.math.floor
+
+/**
+ * Load control applying the BufferConfig and the buffering strategy of the view owning the player.
+ * It does not reference the view, so a pooled player can be handed over to another view.
+ * With the DependingOnMemory strategy, the max buffer shrinks with the memory pressure level.
+ * With the DependingOnNetwork strategy, loading stops at a target between the min and the max buffer set by the network monitor.
+ * With the fast startup mode, the first playback start of a source only needs FAST_START_BUFFER_FOR_PLAYBACK_MS.
+ */
+class RNVLoadControl(allocator: DefaultAllocator, val bufferConfig: BufferConfig, context: Context) :
+    DefaultLoadControl(
+        allocator,
+        valueOrDefault(bufferConfig.minBufferMs, DefaultLoadControl.DEFAULT_MIN_BUFFER_MS),
+        valueOrDefault(bufferConfig.maxBufferMs, DefaultLoadControl.DEFAULT_MAX_BUFFER_MS),
+        valueOrDefault(bufferConfig.bufferForPlaybackMs, DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS),
+        valueOrDefault(bufferConfig.bufferForPlaybackAfterRebufferMs, DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS),
+        -1,
+        true,
+        valueOrDefault(bufferConfig.backBufferDurationMs, DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS),
+        DefaultLoadControl.DEFAULT_RETAIN_BACK_BUFFER_FROM_KEYFRAME
+    ) {
+    private val context = context.applicationContext
+    private val memoryMonitor = ReactNativeVideoManager.getInstance().memoryMonitor
+    private val networkMonitor = ReactNativeVideoManager.getInstance().networkMonitor
+    private val minBufferUs = valueOrDefault(bufferConfig.minBufferMs, DefaultLoadControl.DEFAULT_MIN_BUFFER_MS) * 1000L
+    private val availableHeapInBytes: Int
+    private val maxBufferUs = valueOrDefault(bufferConfig.maxBufferMs, DefaultLoadControl.DEFAULT_MAX_BUFFER_MS) * 1000L
+    private val reserveHeapBytes: Long
+
+    // Set by the view when it prepares a source, cleared by the playback thread once playback starts
+    @Volatile
+    private var isStarting = false
+
+    // Loading stopped at the network target, resumed once the buffer drained below NETWORK_RESUME_RATIO of it
+    private var isHeldByNetwork = false
+
+    /** Buffering strategy of the view owning the player, null behaves as Default. Set from the main thread */
+    var bufferingStrategy: BufferingStrategy.BufferingStrategyEnum? = null
+        set(value) {
+            field = value
+            // Memory is only sampled for the strategy reading it
+            if (value == BufferingStrategy.BufferingStrategyEnum.DependingOnMemory) {
+                memoryMonitor.register(context, this)
+            } else {
+                memoryMonitor.unregister(this)
+            }
+        }
+
+    init {
+        val activityManager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+        val maxHeap = if (bufferConfig.maxHeapAllocationPercent != BufferConfig.BufferConfigPropUnsetDouble) {
+            bufferConfig.maxHeapAllocationPercent
+        } else {
+            ReactExoplayerView.DEFAULT_MAX_HEAP_ALLOCATION_PERCENT
+        }
+        availableHeapInBytes = floor(activityManager.memoryClass * maxHeap * 1024 * 1024).toInt()
+        val minBufferMemoryReservePercent = if (bufferConfig.minBufferMemoryReservePercent != BufferConfig.BufferConfigPropUnsetDouble) {
+            bufferConfig.minBufferMemoryReservePercent
+        } else {
+            ReactExoplayerView.DEFAULT_MIN_BUFFER_MEMORY_RESERVE
+        }
+        reserveHeapBytes = (minBufferMemoryReservePercent * Runtime.getRuntime().maxMemory()).toLong()
+    }
+
+    /** Stop the memory sampling, when the player is released or pooled. Setting the strategy again resumes it */
+    fun detach() {
+        memoryMonitor.unregister(this)
+    }
+
+    @Deprecated("Deprecated in media3")
+    override fun shouldContinueLoading(playbackPositionUs: Long, bufferedDurationUs: Long, playbackSpeed: Float): Boolean {
+        if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DisableBuffering) {
+            return false
+        } else if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DependingOnMemory) {
+            // The goal of this algorithm is to pause video loading (increasing the buffer)
+            // when available memory on device become low.
+            val loadedBytes = allocator.totalBytesAllocated
+            val isHeapReached = availableHeapInBytes > 0 && loadedBytes >= availableHeapInBytes
+            if (isHeapReached) {
+                return false
+            }
+            // Both values are sampled by the memory monitor, no system call on the loading path
+            val bufferedMs = bufferedDurationUs / 1000L
+            if (reserveHeapBytes > memoryMonitor.freeHeapBytes && bufferedMs > MIN_BUFFER_UNDER_PRESSURE_MS) {
+                // We don't have enough memory in reserve so we stop buffering to allow other components to use it instead
+                return false
+            }
+            val level = memoryMonitor.level
+            if (level != RNVMemoryMonitor.Level.Normal && bufferedDurationUs >= maxBufferUs * level.bufferScale) {
+                return false
+            }
+        } else if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DependingOnNetwork) {
+            val targetUs = minBufferUs + ((maxBufferUs - minBufferUs) * networkMonitor.bufferDepth).toLong()
+            if (bufferedDurationUs >= targetUs) {
+                isHeldByNetwork = true
+            } else if (bufferedDurationUs < targetUs * NETWORK_RESUME_RATIO) {
+                isHeldByNetwork = false
+            }
+            if (isHeldByNetwork && bufferedDurationUs >= minBufferUs) {
+                return false
+            }
+        }
+        // "default" case or normal case for "DependingOnMemory" and "DependingOnNetwork"
+        @Suppress("DEPRECATION")
+        return super.shouldContinueLoading(playbackPositionUs, bufferedDurationUs, playbackSpeed)
+    }
+
+    /**
+     * Start playback of the source being prepared with the fast startup buffer.
+     * @param fastStartup whether fast startup is enabled in the BufferConfig of the source, which may not be the one the player was built with
+     */
+    fun beginStartup(fastStartup: Boolean) {
+        isStarting = fastStartup
+    }
+
+    override fun shouldStartPlayback(
+        timeline: Timeline,
+        mediaPeriodId: MediaSource.MediaPeriodId,
+        bufferedDurationUs: Long,
+        playbackSpeed: Float,
+        rebuffering: Boolean,
+        targetLiveOffsetUs: Long
+    ): Boolean {
+        val shouldStart = super.shouldStartPlayback(timeline, mediaPeriodId, bufferedDurationUs, playbackSpeed, rebuffering, targetLiveOffsetUs) ||
+            (isStarting && !rebuffering && bufferedDurationUs >= FAST_START_BUFFER_FOR_PLAYBACK_MS * 1000L)
+        if (shouldStart) {
+            isStarting = false
+        }
+        return shouldStart
+    }
+
+    companion object {
+        // Buffer kept loading while the heap reserve is reached, to avoid rebuffering
+        private const val MIN_BUFFER_UNDER_PRESSURE_MS = 2000L
+
+        // Buffer needed to start playback of a source in fast startup mode
+        const val FAST_START_BUFFER_FOR_PLAYBACK_MS = 500L
+
+        // Part of the network target the buffer drains to before loading resumes, so that loading runs in bursts
+        private const val NETWORK_RESUME_RATIO = 0.8
+
+        private fun valueOrDefault(value: Int, defaultValue: Int): Int = if (value != BufferConfig.BufferConfigPropUnsetInt) value else defaultValue
+    }
+}
@@ -0,0 +1,78 @@
+package com.brentvatne.exoplayer
+
+import android.net.Uri
+import android.os.SystemClock
+import com.brentvatne.common.toolbox.DebugLog
+
+/**
+ * In memory cache of VOD manifests and playlists, bounded in bytes.
+ * Entries expire according to the Cache-Control header of the response, or to the fallback ttl
+ * provided by the source when the header is missing. Live manifests are never stored.
+ * Each manifest is stored with the uri it was fetched from after redirects, its relative urls resolve against it.
+ */
+object RNVManifestCache {
+    private const val TAG = "RNVManifestCache"
+
+    /** Total size of the stored manifests */
+    const val MAX_BYTES = 4 * 1024 * 1024
+
+    /** Manifests bigger than this are not stored */
+    const val MAX_ENTRY_BYTES = 1024 * 1024
+
+    /** @param uri uri the manifest was served from, after redirects */
+    class Manifest(val data: ByteArray, val uri: Uri)
+
+    private class Entry(val manifest: Manifest, val expiresAtMs: Long)
+
+    data class Stats(val hits: Long, val misses: Long, val size: Int, val bytes: Int)
+
+    private val entries = LinkedHashMap<String, Entry>(16, 0.75f, true)
+    private var bytes = 0
+    private var hits = 0L
+    private var misses = 0L
+
+    /** @return the manifest stored for the key, null if none or expired */
+    @Synchronized
+    fun get(key: String): Manifest? {
+        val entry = entries[key]
+        if (entry == null) {
+            misses++
+            return null
+        }
+        if (entry.expiresAtMs <= SystemClock.elapsedRealtime()) {
+            remove(key)
+            misses++
+            return null
+        }
+        hits++
+        return entry.manifest
+    }
+
+    @Synchronized
+    fun put(key: String, manifest: Manifest, ttlMs: Long) {
+        if (ttlMs <= 0 || manifest.data.size > MAX_ENTRY_BYTES) return
+        remove(key)
+        entries[key] = Entry(manifest, SystemClock.elapsedRealtime() + ttlMs)
+        bytes += manifest.data.size
+        // Iteration order is access order, least recently used entries come first
+        val iterator = entries.entries.iterator()
+        while (bytes > MAX_BYTES && iterator.hasNext()) {
+            bytes -= iterator.next().value.manifest.data.size
+            iterator.remove()
+        }
+        DebugLog.d(TAG, "stored $key for $ttlMs ms")
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+        bytes = 0
+    }
+
+    @Synchronized
+    fun getStats() = Stats(hits, misses, entries.size, bytes)
+
+    private fun remove(key: String) {
+        entries.remove(key)?.let { bytes -= it.manifest.data.size }
+    }
+}
@@ -0,0 +1,176 @@
+package com.brentvatne.exoplayer
+
+import android.app.ActivityManager
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import com.brentvatne.common.toolbox.DebugLog
+import java.util.Collections
+import java.util.WeakHashMap
+
+/**
+ * Process wide memory pressure level, read by the load controls on each loading decision without any system call.
+ * The level is raised by ComponentCallbacks2.onTrimMemory and by a periodic sample of the heap and of
+ * ActivityManager.MemoryInfo. A level raised by onTrimMemory is kept for TRIM_HOLD_MS, then samples can lower it,
+ * a single sample is taken at the end of the hold when sampling is not running.
+ * Sampling runs while a load control with the DependingOnMemory strategy is registered, trim callbacks are followed once attached.
+ * Listeners are notified of level changes on the main thread.
+ */
+class RNVMemoryMonitor {
+
+    /**
+     * Pressure levels, lowest first.
+     * @param bufferScale fraction of the max buffer loaded under this level
+     */
+    enum class Level(val value: String, val bufferScale: Double) {
+        Normal("normal", 1.0),
+        Moderate("moderate", 0.75),
+        Low("low", 0.5),
+        Critical("critical", 0.25)
+    }
+
+    fun interface Listener {
+        fun onMemoryPressureChanged(level: Level, previousLevel: Level)
+    }
+
+    @Volatile
+    var level = Level.Normal
+        private set
+
+    /** Heap the app can still allocate, as of the last sample */
+    @Volatile
+    var freeHeapBytes = Long.MAX_VALUE
+        private set
+
+    private val runtime = Runtime.getRuntime()
+    private val handler = Handler(Looper.getMainLooper())
+    private val memoryInfo = ActivityManager.MemoryInfo()
+    private val listeners = ArrayList<Listener>()
+    private val loadControls = Collections.newSetFromMap(WeakHashMap<Any, Boolean>())
+    private var activityManager: ActivityManager? = null
+    private var context: Context? = null
+    private var isSampling = false
+    private var trimLevel = Level.Normal
+    private var trimLevelAtMs = 0L
+
+    private val sampleRunnable = object : Runnable {
+        override fun run() {
+            if (synchronized(loadControls) { loadControls.isEmpty() }) {
+                isSampling = false
+                return
+            }
+            sample()
+            handler.postDelayed(this, SAMPLE_INTERVAL_MS)
+        }
+    }
+
+    // Lowers the level held by onTrimMemory when no periodic sample would
+    private val trimDecayRunnable = Runnable { sample() }
+
+    private val memoryCallbacks = object : ComponentCallbacks2 {
+        override fun onTrimMemory(level: Int) {
+            val trimmed = when {
+                level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE -> Level.Critical
+                level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND -> Level.Low
+                // App hidden, not a memory signal
+                level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN -> return
+                level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> Level.Critical
+                level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> Level.Low
+                level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE -> Level.Moderate
+                else -> return
+            }
+            trimLevel = trimmed
+            trimLevelAtMs = SystemClock.elapsedRealtime()
+            sample()
+            if (!isSampling) {
+                handler.removeCallbacks(trimDecayRunnable)
+                handler.postDelayed(trimDecayRunnable, TRIM_HOLD_MS)
+            }
+        }
+
+        override fun onConfigurationChanged(newConfig: Configuration) {
+            // Do nothing.
+        }
+
+        @Deprecated("Deprecated in Java")
+        override fun onLowMemory() {
+            onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+        }
+    }
+
+    /** Follow the memory trim callbacks of the system, without sampling, from the main thread */
+    fun attach(context: Context) {
+        if (this.context != null) return
+        this.context = context.applicationContext
+        activityManager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+        this.context?.registerComponentCallbacks(memoryCallbacks)
+    }
+
+    /** Start sampling until the load control is unregistered or collected, from the main thread */
+    fun register(context: Context, loadControl: Any) {
+        attach(context)
+        synchronized(loadControls) { loadControls.add(loadControl) }
+        if (!isSampling) {
+            isSampling = true
+            handler.post(sampleRunnable)
+        }
+    }
+
+    /** Sampling stops at its next run once no load control is registered */
+    fun unregister(loadControl: Any) {
+        synchronized(loadControls) { loadControls.remove(loadControl) }
+    }
+
+    fun addListener(listener: Listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener)
+        }
+    }
+
+    fun removeListener(listener: Listener) {
+        listeners.remove(listener)
+    }
+
+    private fun sample() {
+        val usedHeap = runtime.totalMemory() - runtime.freeMemory()
+        freeHeapBytes = runtime.maxMemory() - usedHeap
+        val heapUsage = usedHeap.toDouble() / runtime.maxMemory()
+        var sampled = when {
+            heapUsage >= 0.9 -> Level.Critical
+            heapUsage >= 0.8 -> Level.Low
+            heapUsage >= 0.7 -> Level.Moderate
+            else -> Level.Normal
+        }
+        activityManager?.let {
+            it.getMemoryInfo(memoryInfo)
+            val systemLevel = when {
+                memoryInfo.lowMemory -> Level.Critical
+                memoryInfo.availMem < memoryInfo.threshold * 3 / 2 -> Level.Low
+                memoryInfo.availMem < memoryInfo.threshold * 2 -> Level.Moderate
+                else -> Level.Normal
+            }
+            sampled = maxOf(sampled, systemLevel)
+        }
+        if (SystemClock.elapsedRealtime() - trimLevelAtMs < TRIM_HOLD_MS) {
+            sampled = maxOf(sampled, trimLevel)
+        }
+        setLevel(sampled)
+    }
+
+    private fun setLevel(newLevel: Level) {
+        val previousLevel = level
+        if (newLevel == previousLevel) return
+        level = newLevel
+        DebugLog.d(TAG, "memory pressure ${previousLevel.value} -> ${newLevel.value}, free heap $freeHeapBytes bytes")
+        ArrayList(listeners).forEach { it.onMemoryPressureChanged(newLevel, previousLevel) }
+    }
+
+    companion object {
+        private const val TAG = "RNVMemoryMonitor"
+        const val SAMPLE_INTERVAL_MS = 2000L
+        const val TRIM_HOLD_MS = 30_000L
+    }
+}
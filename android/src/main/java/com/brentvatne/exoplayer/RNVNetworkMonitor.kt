@@ -0,0 +1,107 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkCapabilities
+import android.os.Handler
+import android.os.Looper
+import androidx.media3.exoplayer.upstream.BandwidthMeter
+import com.brentvatne.common.toolbox.DebugLog
+
+/**
+ * Process wide network conditions, read by the load controls using the DependingOnNetwork buffering strategy.
+ * Conditions are the bandwidth estimate and the variation of the recent transfer samples of the shared bandwidth meter,
+ * and whether the default network is metered. They are reduced to a buffer depth, between 0 for lean buffers and
+ * 1 for deep buffers, updated on each sample and network change and read by the load controls without any call.
+ * Updates run on the main thread.
+ */
+class RNVNetworkMonitor {
+
+    /** Buffer depth between the min (0) and the max (1) buffer of the BufferConfig */
+    @Volatile
+    var bufferDepth = DEPTH_BALANCED
+        private set
+
+    @Volatile
+    var isMetered = true
+        private set
+
+    private val stats = RNVBandwidthStats()
+    private val handler = Handler(Looper.getMainLooper())
+    private var bandwidthMeter: BandwidthMeter? = null
+    private var isNetworkCallbackRegistered = false
+
+    private val bandwidthListener = BandwidthMeter.EventListener { elapsedMs, bytesTransferred, bitrateEstimate ->
+        stats.addSample(elapsedMs, bytesTransferred, bitrateEstimate)
+        update()
+    }
+
+    // Called on the connectivity thread, the handler overload needs API 26
+    private val networkCallback = object : ConnectivityManager.NetworkCallback() {
+        override fun onCapabilitiesChanged(network: Network, networkCapabilities: NetworkCapabilities) {
+            val metered = !networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED)
+            handler.post {
+                isMetered = metered
+                update()
+            }
+        }
+
+        override fun onLost(network: Network) {
+            handler.post {
+                isMetered = true
+                update()
+            }
+        }
+    }
+
+    /**
+     * Follow the bandwidth meter of a player and the default network, from the main thread.
+     * The meter replaces the previous one, views share it unless the initial bitrate changes.
+     */
+    fun attach(context: Context, meter: BandwidthMeter) {
+        if (!isNetworkCallbackRegistered) {
+            val connectivityManager = context.applicationContext.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+            try {
+                connectivityManager.registerDefaultNetworkCallback(networkCallback)
+                isNetworkCallbackRegistered = true
+            } catch (e: SecurityException) {
+                DebugLog.w(TAG, "cannot follow the network state: ${e.message}")
+            }
+        }
+        if (bandwidthMeter === meter) return
+        bandwidthMeter?.removeEventListener(bandwidthListener)
+        bandwidthMeter = meter
+        meter.addEventListener(handler, bandwidthListener)
+    }
+
+    private fun update() {
+        val estimate = bandwidthMeter?.bitrateEstimate ?: 0L
+        val variation = stats.getVariation(VARIATION_SAMPLES)
+        val depth = when {
+            // Shaky or slow network, buffer as much as allowed to ride out drops
+            variation >= SHAKY_VARIATION || estimate < SLOW_BITRATE -> DEPTH_DEEP
+            // Fast and steady, refilling is cheap: keep the buffer lean to not waste bytes on abandoned playbacks
+            estimate >= FAST_BITRATE && variation < STEADY_VARIATION -> if (isMetered) DEPTH_BALANCED / 2 else DEPTH_LEAN
+            else -> DEPTH_BALANCED
+        }
+        if (depth != bufferDepth) {
+            DebugLog.d(TAG, "buffer depth $bufferDepth -> $depth (estimate $estimate, variation $variation, metered $isMetered)")
+            bufferDepth = depth
+        }
+    }
+
+    companion object {
+        private const val TAG = "RNVNetworkMonitor"
+
+        const val DEPTH_LEAN = 0.0
+        const val DEPTH_BALANCED = 0.5
+        const val DEPTH_DEEP = 1.0
+
+        private const val VARIATION_SAMPLES = 20
+        private const val SHAKY_VARIATION = 0.6
+        private const val STEADY_VARIATION = 0.3
+        private const val SLOW_BITRATE = 2_000_000L
+        private const val FAST_BITRATE = 10_000_000L
+    }
+}
@@ -0,0 +1,242 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.net.Uri
+import android.util.Base64
+import androidx.media3.common.C
+import androidx.media3.datasource.HttpDataSource
+import androidx.media3.exoplayer.dash.DashUtil
+import androidx.media3.exoplayer.drm.DefaultDrmSessionManager
+import androidx.media3.exoplayer.drm.DrmSessionEventListener
+import androidx.media3.exoplayer.drm.FrameworkMediaDrm
+import androidx.media3.exoplayer.drm.OfflineLicenseHelper
+import com.brentvatne.common.api.DRMProps
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.react.ReactNativeVideoManager
+import java.util.Collections
+import java.util.UUID
+
+/**
+ * Persistent store of Widevine offline licenses, keyed by DRM content id (or source uri when not set).
+ * A source played with drm.offlineLicense plays online the first time while its license is downloaded in the background,
+ * later plays restore the stored license without any license request.
+ * Licenses are renewed in the background once half of their duration has elapsed, and released once expired or removed:
+ * a removed license is kept under a release key until the license server acknowledged its release, so that it is retried otherwise.
+ * Only DASH sources are supported: the DRM init data is read from the manifest.
+ */
+object RNVOfflineLicenseStore {
+    private const val TAG = "RNVOfflineLicenseStore"
+    private const val PREFERENCES_NAME = "RNVOfflineLicenses"
+    private const val RELEASE_KEY_PREFIX = "release:"
+    private const val HEADER_SEPARATOR = "\n"
+
+    /**
+     * @param licenseServer license server and headers to release the license with, null for licenses stored without them
+     */
+    private class StoredLicense(
+        val keySetId: ByteArray,
+        val acquiredAtMs: Long,
+        val expiresAtMs: Long,
+        val licenseServer: String?,
+        val licenseHeaders: Array<String>
+    ) {
+        fun isExpired(now: Long) = now >= expiresAtMs
+        fun needsRenewal(now: Long) = now - acquiredAtMs >= (expiresAtMs - acquiredAtMs) / 2
+
+        fun serialize(): String =
+            listOf(
+                encode(keySetId),
+                acquiredAtMs.toString(),
+                expiresAtMs.toString(),
+                encode(licenseServer.orEmpty().toByteArray()),
+                encode(licenseHeaders.joinToString(HEADER_SEPARATOR).toByteArray())
+            ).joinToString(";")
+
+        /** DRM props to request the release of the license with */
+        fun toReleaseDrmProps(): DRMProps? {
+            val drmProps = DRMProps()
+            drmProps.drmLicenseServer = licenseServer ?: return null
+            drmProps.drmLicenseHeader = licenseHeaders
+            return drmProps
+        }
+
+        companion object {
+            private fun encode(bytes: ByteArray) = Base64.encodeToString(bytes, Base64.NO_WRAP)
+            private fun decode(value: String) = String(Base64.decode(value, Base64.NO_WRAP))
+
+            fun deserialize(value: String?): StoredLicense? {
+                val parts = value?.split(";") ?: return null
+                // Licenses stored before the release support have no license server
+                if (parts.size != 3 && parts.size != 5) return null
+                return try {
+                    val headers = if (parts.size == 5) decode(parts[4]) else ""
+                    StoredLicense(
+                        Base64.decode(parts[0], Base64.NO_WRAP),
+                        parts[1].toLong(),
+                        parts[2].toLong(),
+                        if (parts.size == 5) decode(parts[3]).takeIf { it.isNotEmpty() } else null,
+                        if (headers.isEmpty()) emptyArray() else headers.split(HEADER_SEPARATOR).toTypedArray()
+                    )
+                } catch (e: IllegalArgumentException) {
+                    null
+                }
+            }
+        }
+    }
+
+    // Keys with a download or renewal in progress
+    private val pendingKeys = Collections.synchronizedSet(HashSet<String>())
+
+    @JvmStatic
+    fun getStoreKey(drmProps: DRMProps, uri: Uri): String = drmProps.contentId?.takeIf { it.isNotEmpty() } ?: uri.toString()
+
+    /**
+     * Offline license to play the source with, and schedule its download or renewal in the background if needed.
+     * @return the key set id of a valid stored license, null to play with an online license
+     */
+    @JvmStatic
+    fun getKeySetId(context: Context, uuid: UUID, drmProps: DRMProps, uri: Uri, httpDataSourceFactory: HttpDataSource.Factory): ByteArray? {
+        if (uuid != C.WIDEVINE_UUID) {
+            DebugLog.w(TAG, "offline licenses are only supported with Widevine")
+            return null
+        }
+        val key = getStoreKey(drmProps, uri)
+        val license = get(context, key)
+        val now = System.currentTimeMillis()
+        if (license == null || license.isExpired(now)) {
+            if (license != null) {
+                remove(context, key, httpDataSourceFactory)
+            }
+            schedule(key) { download(context, key, uuid, drmProps, uri, httpDataSourceFactory) }
+            return null
+        }
+        if (license.needsRenewal(now)) {
+            schedule(key) { renew(context, key, uuid, drmProps, license, httpDataSourceFactory) }
+        }
+        return license.keySetId
+    }
+
+    /**
+     * Forget the stored license, for example after a playback failure with it, and release it in the background
+     * @param httpDataSourceFactory data source factory of the release requests
+     */
+    @JvmStatic
+    fun remove(context: Context, key: String, httpDataSourceFactory: HttpDataSource.Factory) {
+        val preferences = preferences(context)
+        val editor = preferences.edit()
+        moveToRelease(editor, key, preferences.getString(key, null) ?: return)
+        editor.apply()
+        releasePending(context, httpDataSourceFactory)
+    }
+
+    @JvmStatic
+    fun clear(context: Context, httpDataSourceFactory: HttpDataSource.Factory) {
+        val preferences = preferences(context)
+        val editor = preferences.edit()
+        for ((key, value) in preferences.all) {
+            if (!key.startsWith(RELEASE_KEY_PREFIX) && value is String) {
+                moveToRelease(editor, key, value)
+            }
+        }
+        editor.apply()
+        releasePending(context, httpDataSourceFactory)
+    }
+
+    private fun get(context: Context, key: String): StoredLicense? = StoredLicense.deserialize(preferences(context).getString(key, null))
+
+    private fun put(context: Context, key: String, keySetId: ByteArray, drmProps: DRMProps, helper: OfflineLicenseHelper) {
+        val durations = helper.getLicenseDurationRemainingSec(keySetId)
+        // Unknown durations are C.TIME_UNSET, a license without any known duration is stored as non-expiring
+        val remainingSec = listOf(durations.first, durations.second).filter { it != C.TIME_UNSET }.minOrNull() ?: Long.MAX_VALUE
+        if (remainingSec <= 0) {
+            DebugLog.w(TAG, "not storing license $key, already expired")
+            helper.releaseLicense(keySetId)
+            return
+        }
+        val now = System.currentTimeMillis()
+        val expiresAtMs = if (remainingSec >= (Long.MAX_VALUE - now) / 1000) Long.MAX_VALUE else now + remainingSec * 1000
+        val license = StoredLicense(keySetId, now, expiresAtMs, drmProps.drmLicenseServer, drmProps.drmLicenseHeader)
+        preferences(context).edit().putString(key, license.serialize()).apply()
+        DebugLog.d(TAG, "stored license $key for $remainingSec s")
+    }
+
+    // Release keys are unique per key set id, a license stored again under the same key does not replace a pending release
+    private fun moveToRelease(editor: SharedPreferences.Editor, key: String, value: String) {
+        editor.remove(key)
+        val license = StoredLicense.deserialize(value) ?: return
+        editor.putString(RELEASE_KEY_PREFIX + Base64.encodeToString(license.keySetId, Base64.NO_WRAP), value)
+    }
+
+    /** Release the removed licenses, those that failed before included */
+    private fun releasePending(context: Context, httpDataSourceFactory: HttpDataSource.Factory) {
+        for ((releaseKey, value) in preferences(context).all) {
+            if (!releaseKey.startsWith(RELEASE_KEY_PREFIX) || value !is String) continue
+            val license = StoredLicense.deserialize(value)
+            schedule(releaseKey) { release(context, releaseKey, license, httpDataSourceFactory) }
+        }
+    }
+
+    private fun release(context: Context, releaseKey: String, license: StoredLicense?, httpDataSourceFactory: HttpDataSource.Factory) {
+        val drmProps = license?.toReleaseDrmProps()
+        if (license != null && drmProps != null) {
+            try {
+                withHelper(C.WIDEVINE_UUID, drmProps, httpDataSourceFactory) { helper -> helper.releaseLicense(license.keySetId) }
+                DebugLog.d(TAG, "released license $releaseKey")
+            } catch (e: Exception) {
+                // An expired license may be refused by the license server, and is useless on the device anyway
+                if (!license.isExpired(System.currentTimeMillis())) {
+                    throw e
+                }
+                DebugLog.w(TAG, "dropping expired license $releaseKey: ${e.message}")
+            }
+        }
+        preferences(context).edit().remove(releaseKey).apply()
+    }
+
+    private fun schedule(key: String, task: () -> Unit) {
+        if (!pendingKeys.add(key)) return
+        ReactNativeVideoManager.getInstance().executor.execute(this, RNVExecutor.Priority.OfflineLicense) {
+            try {
+                task()
+            } catch (e: Exception) {
+                DebugLog.w(TAG, "offline license $key failed: ${e.message}")
+            } finally {
+                pendingKeys.remove(key)
+            }
+        }
+    }
+
+    private fun download(context: Context, key: String, uuid: UUID, drmProps: DRMProps, uri: Uri, httpDataSourceFactory: HttpDataSource.Factory) {
+        val dataSource = httpDataSourceFactory.createDataSource()
+        val manifest = DashUtil.loadManifest(dataSource, uri)
+        val format = DashUtil.loadFormatWithDrmInitData(dataSource, manifest.getPeriod(0))
+        if (format?.drmInitData == null) {
+            DebugLog.w(TAG, "no DRM init data in $uri")
+            return
+        }
+        withHelper(uuid, drmProps, httpDataSourceFactory) { helper ->
+            put(context, key, helper.downloadLicense(format), drmProps, helper)
+        }
+    }
+
+    private fun renew(context: Context, key: String, uuid: UUID, drmProps: DRMProps, license: StoredLicense, httpDataSourceFactory: HttpDataSource.Factory) {
+        withHelper(uuid, drmProps, httpDataSourceFactory) { helper ->
+            put(context, key, helper.renewLicense(license.keySetId), drmProps, helper)
+        }
+    }
+
+    private fun withHelper(uuid: UUID, drmProps: DRMProps, httpDataSourceFactory: HttpDataSource.Factory, block: (OfflineLicenseHelper) -> Unit) {
+        val drmSessionManager = DefaultDrmSessionManager.Builder()
+            .setUuidAndExoMediaDrmProvider(uuid, FrameworkMediaDrm.DEFAULT_PROVIDER)
+            .build(DRMManager.buildDrmCallback(drmProps, httpDataSourceFactory))
+        val helper = OfflineLicenseHelper(drmSessionManager, DrmSessionEventListener.EventDispatcher())
+        try {
+            block(helper)
+        } finally {
+            helper.release()
+        }
+    }
+
+    private fun preferences(context: Context) = context.applicationContext.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE)
+}
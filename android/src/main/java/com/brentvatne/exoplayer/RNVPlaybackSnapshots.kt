@@ -0,0 +1,47 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import androidx.media3.common.C
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Latest playback state of each player view, keyed by react tag.
+ * Views publish an immutable snapshot on each progress tick and playback change, readers on any thread
+ * get it without a thread hop nor a view lookup.
+ */
+object RNVPlaybackSnapshots {
+
+    /** Playback state published by a view, times in ms */
+    data class Snapshot(
+        val position: Long,
+        val bufferedPosition: Long,
+        val duration: Long,
+        val state: String,
+        val isPlaying: Boolean,
+        val rate: Float,
+        val bitrate: Int,
+        val publishedAtMs: Long
+    ) {
+        /** Position now, extrapolated from the published one while playing */
+        fun getCurrentPosition(): Long {
+            if (!isPlaying) return position
+            val extrapolated = position + ((SystemClock.elapsedRealtime() - publishedAtMs) * rate).toLong()
+            return if (duration != C.TIME_UNSET) minOf(extrapolated, duration) else extrapolated
+        }
+    }
+
+    private val snapshots = ConcurrentHashMap<Int, Snapshot>()
+
+    @JvmStatic
+    fun publish(reactTag: Int, snapshot: Snapshot) {
+        snapshots[reactTag] = snapshot
+    }
+
+    @JvmStatic
+    fun get(reactTag: Int): Snapshot? = snapshots[reactTag]
+
+    @JvmStatic
+    fun remove(reactTag: Int) {
+        snapshots.remove(reactTag)
+    }
+}
@@ -0,0 +1,98 @@
+package com.brentvatne.exoplayer
+
+import androidx.media3.exoplayer.ExoPlayer
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory
+import androidx.media3.exoplayer.trackselection.DefaultTrackSelector
+import androidx.media3.exoplayer.upstream.BandwidthMeter
+import com.brentvatne.common.api.BufferConfig
+import com.brentvatne.common.toolbox.DebugLog
+
+/**
+ * Bounded pool of idle players, shared by the ReactExoplayerView instances.
+ * A released view hands its player back stopped and detached, a new view with a compatible
+ * configuration (buffer config fields applied when the player is built, view type, bandwidth meter) gets it back instead of building a new one.
+ * Pool is disabled by default (maxSize = 0), all accesses are done on the main thread.
+ */
+class RNVPlayerPool(memoryMonitor: RNVMemoryMonitor) {
+    /** A player and the components it has been built with */
+    class PooledPlayer(
+        val player: ExoPlayer,
+        val trackSelector: DefaultTrackSelector,
+        val trackSelectionFactory: RNVCacheAwareTrackSelection.Factory,
+        val loadControl: RNVLoadControl,
+        val mediaSourceFactory: DefaultMediaSourceFactory,
+        val bandwidthMeter: BandwidthMeter,
+        val viewType: Int
+    ) {
+        val bufferConfig: BufferConfig
+            get() = loadControl.bufferConfig
+
+        fun matches(bufferConfig: BufferConfig, viewType: Int, bandwidthMeter: BandwidthMeter): Boolean =
+            this.bufferConfig.isPlayerConfigEqual(bufferConfig) && this.viewType == viewType && this.bandwidthMeter === bandwidthMeter
+    }
+
+    data class Stats(val size: Int, val maxSize: Int, val hits: Long, val misses: Long, val evictions: Long)
+
+    // BufferConfig has no hashCode, the pool is small enough for a linear lookup
+    private val idlePlayers = ArrayList<PooledPlayer>()
+    private var hits = 0L
+    private var misses = 0L
+    private var evictions = 0L
+
+    var maxSize = 0
+        set(value) {
+            field = value.coerceAtLeast(0)
+            trim(field)
+        }
+
+    /** When true, idle players are released when the system reports memory pressure */
+    var trimOnMemoryPressure = true
+
+    init {
+        memoryMonitor.addListener { level, _ ->
+            if (trimOnMemoryPressure && level >= RNVMemoryMonitor.Level.Low && idlePlayers.isNotEmpty()) {
+                DebugLog.d(TAG, "memory pressure ${level.value}, releasing ${idlePlayers.size} idle players")
+                trim(0)
+            }
+        }
+    }
+
+    /**
+     * Take an idle player compatible with the configuration.
+     * @return null if none is available, the caller must build a new player
+     */
+    fun acquire(bufferConfig: BufferConfig, viewType: Int, bandwidthMeter: BandwidthMeter): PooledPlayer? {
+        if (maxSize == 0) return null
+        val index = idlePlayers.indexOfFirst { it.matches(bufferConfig, viewType, bandwidthMeter) }
+        if (index < 0) {
+            misses++
+            return null
+        }
+        hits++
+        return idlePlayers.removeAt(index)
+    }
+
+    /**
+     * Give back a player stopped and detached from its view.
+     * @return false if the pool is full, the caller must release the player
+     */
+    fun recycle(pooledPlayer: PooledPlayer): Boolean {
+        if (idlePlayers.size >= maxSize) return false
+        idlePlayers.add(pooledPlayer)
+        return true
+    }
+
+    fun getStats() = Stats(idlePlayers.size, maxSize, hits, misses, evictions)
+
+    /** Release idle players until the pool contains at most size players, oldest first */
+    fun trim(size: Int) {
+        while (idlePlayers.size > size) {
+            idlePlayers.removeAt(0).player.release()
+            evictions++
+        }
+    }
+
+    companion object {
+        private const val TAG = "RNVPlayerPool"
+    }
+}
@@ -0,0 +1,321 @@
+package com.brentvatne.exoplayer
+
+import android.text.TextUtils
+import androidx.media3.common.C
+import androidx.media3.common.Format
+import androidx.media3.common.MediaItem
+import androidx.media3.common.MimeTypes
+import androidx.media3.common.util.ConditionVariable
+import androidx.media3.common.util.Util
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.cache.CacheDataSource
+import androidx.media3.datasource.cache.CacheKeyFactory
+import androidx.media3.datasource.cache.CacheWriter
+import androidx.media3.exoplayer.DefaultRenderersFactory
+import androidx.media3.exoplayer.offline.DefaultDownloaderFactory
+import androidx.media3.exoplayer.offline.DownloadHelper
+import androidx.media3.exoplayer.offline.Downloader
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
+import com.brentvatne.common.api.PreloadOptions
+import com.brentvatne.common.api.Source
+import com.brentvatne.common.toolbox.DebugLog
+import com.facebook.react.bridge.ReactContext
+import java.io.IOException
+import java.util.UUID
+import java.util.concurrent.PriorityBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Warm the media cache with the beginning of a source before any player is created.
+ * Progressive content is written with a CacheWriter, adaptive content (HLS, DASH, SmoothStreaming)
+ * is fetched with the media3 downloaders until the byte budget is reached.
+ * Preloads run by priority on a small dedicated pool and hold a reference on their cache namespace while running.
+ */
+object RNVPreloader {
+    private const val TAG = "RNVPreloader"
+
+    private const val MAX_CONCURRENT_PRELOADS = 2
+    private const val MAX_FINISHED_PRELOADS = 50
+
+    /** Bitrate used to convert a duration into bytes when the media bitrate is unknown */
+    private const val DEFAULT_BITRATE = 2_000_000L
+
+    enum class Status(val value: String) {
+        Pending("pending"),
+        Running("running"),
+        Completed("completed"),
+        Cancelled("cancelled"),
+        Failed("failed")
+    }
+
+    /** Snapshot of a preload, reported to JS by VideoManagerModule.getPreloadStatus */
+    data class PreloadState(val id: String, val status: Status, val bytesCached: Long, val bytesTarget: Long, val error: String?)
+
+    private val sequence = AtomicLong()
+    private val tasks = LinkedHashMap<String, PreloadTask>()
+
+    private val executor = ThreadPoolExecutor(
+        MAX_CONCURRENT_PRELOADS,
+        MAX_CONCURRENT_PRELOADS,
+        30,
+        TimeUnit.SECONDS,
+        PriorityBlockingQueue()
+    ).apply { allowCoreThreadTimeOut(true) }
+
+    /**
+     * Queue a preload of the source.
+     * @return the preload id used by getStatus and cancel
+     */
+    @Synchronized
+    fun preload(context: ReactContext, source: Source, options: PreloadOptions): String {
+        val id = UUID.randomUUID().toString()
+        val task = PreloadTask(id, context, source, options, sequence.getAndIncrement())
+        tasks[id] = task
+        pruneFinishedTasks()
+        // execute, not submit: the queue needs the comparable task itself
+        executor.execute(task)
+        return id
+    }
+
+    @Synchronized
+    fun getStatus(id: String): PreloadState? = tasks[id]?.getState()
+
+    /**
+     * Cancel a pending or running preload. Data already cached stays in the cache.
+     * @return false if the preload is unknown or already finished
+     */
+    fun cancel(id: String): Boolean {
+        val task = synchronized(this) { tasks[id] } ?: return false
+        if (!task.cancel()) return false
+        executor.remove(task)
+        return true
+    }
+
+    @Synchronized
+    private fun pruneFinishedTasks() {
+        val finished = tasks.values.filter { it.isFinished() }
+        if (finished.size > MAX_FINISHED_PRELOADS) {
+            // LinkedHashMap keeps insertion order, oldest preloads are dropped first
+            finished.take(finished.size - MAX_FINISHED_PRELOADS).forEach { tasks.remove(it.id) }
+        }
+    }
+
+    private class PreloadTask(
+        val id: String,
+        private val context: ReactContext,
+        private val source: Source,
+        private val options: PreloadOptions,
+        private val sequence: Long
+    ) : Runnable,
+        Comparable<PreloadTask> {
+        @Volatile private var status = Status.Pending
+
+        @Volatile private var bytesCached = 0L
+
+        @Volatile private var bytesTarget = C.LENGTH_UNSET.toLong()
+
+        @Volatile private var error: String? = null
+
+        @Volatile private var cacheWriter: CacheWriter? = null
+
+        @Volatile private var downloader: Downloader? = null
+
+        @Volatile private var budgetReached = false
+
+        fun getState() = PreloadState(id, status, bytesCached, bytesTarget, error)
+
+        fun isFinished() = status == Status.Completed || status == Status.Cancelled || status == Status.Failed
+
+        @Synchronized
+        fun cancel(): Boolean {
+            if (isFinished()) return false
+            status = Status.Cancelled
+            cacheWriter?.cancel()
+            downloader?.cancel()
+            return true
+        }
+
+        override fun compareTo(other: PreloadTask): Int {
+            if (priority() != other.priority()) {
+                // Higher priority first
+                return other.priority().compareTo(priority())
+            }
+            return sequence.compareTo(other.sequence)
+        }
+
+        private fun priority() = options.priority
+
+        override fun run() {
+            synchronized(this) {
+                if (status != Status.Pending) return
+                status = Status.Running
+            }
+            val uri = source.uri
+            val bufferConfig = source.bufferConfig
+            if (uri == null || source.isLocalAssetFile || source.isAsset) {
+                finish(Status.Failed, "Only remote sources can be preloaded")
+                return
+            }
+            if (!RNVSimpleCache.acquire(context, bufferConfig.cacheNamespace, bufferConfig.cacheSize)) {
+                finish(Status.Failed, "Cache is disabled, set bufferConfig.cacheSizeMB to preload")
+                return
+            }
+            try {
+                val mimeType = inferAdaptiveMimeType()
+                val cacheKeyFactory = RNVCacheKeyFactory.fromSource(source)
+                // Same keys as the player, otherwise preloaded data would never be read
+                val cacheDataSourceFactory = RNVSimpleCache.buildCacheDataSourceFactory(
+                    bufferConfig.cacheNamespace,
+                    DataSourceUtil.getDefaultHttpDataSourceFactory(context, null, source.headers),
+                    cacheKeyFactory,
+                    RNVCacheEvictor.Priority.fromString(options.cachePriority ?: bufferConfig.cachePriority),
+                    pinnedBytes(mimeType),
+                    // Segment keys are recorded under the source key, the one unpinCache looks up
+                    (cacheKeyFactory ?: CacheKeyFactory.DEFAULT).buildCacheKey(DataSpec(uri))
+                )!!
+                if (mimeType == null) {
+                    preloadProgressive(cacheDataSourceFactory)
+                } else {
+                    preloadAdaptive(cacheDataSourceFactory, mimeType)
+                }
+                finish(Status.Completed, null)
+            } catch (e: Exception) {
+                if (status == Status.Cancelled) {
+                    finish(Status.Cancelled, null)
+                } else if (budgetReached) {
+                    // Downloader has been stopped on purpose once the budget was reached
+                    finish(Status.Completed, null)
+                } else {
+                    DebugLog.w(TAG, "preload $id failed: ${e.message}")
+                    finish(Status.Failed, e.message ?: e.toString())
+                }
+            } finally {
+                // Downloader cancellation interrupts the loading thread, clear the flag before reusing it
+                Thread.interrupted()
+                cacheWriter = null
+                downloader = null
+                RNVSimpleCache.release(bufferConfig.cacheNamespace)
+            }
+        }
+
+        private fun finish(newStatus: Status, message: String?) {
+            synchronized(this) {
+                if (status != Status.Cancelled) {
+                    status = newStatus
+                }
+                error = message
+            }
+            DebugLog.d(TAG, "preload $id ${status.value}, $bytesCached bytes cached")
+        }
+
+        private fun inferAdaptiveMimeType(): String? {
+            val type = Util.inferContentType(
+                if (!TextUtils.isEmpty(source.extension)) "." + source.extension else source.uri!!.lastPathSegment ?: ""
+            )
+            return when (type) {
+                C.CONTENT_TYPE_HLS -> MimeTypes.APPLICATION_M3U8
+                C.CONTENT_TYPE_DASH -> MimeTypes.APPLICATION_MPD
+                C.CONTENT_TYPE_SS -> MimeTypes.APPLICATION_SS
+                else -> null
+            }
+        }
+
+        /**
+         * Segments of adaptive content are short, each key written by the preload is pinned whole.
+         * Progressive content is a single key, only the preloaded beginning is pinned.
+         */
+        private fun pinnedBytes(mimeType: String?): Long = when {
+            !options.pin -> 0
+            mimeType != null -> C.LENGTH_UNSET.toLong()
+            options.bytes > 0 -> options.bytes
+            else -> {
+                val initialBitrate = source.bufferConfig.initialBitrate
+                targetBytes(if (initialBitrate > 0) initialBitrate.toLong() else DEFAULT_BITRATE)
+            }
+        }
+
+        private fun targetBytes(bitrate: Long): Long =
+            if (options.bytes > 0) options.bytes else options.durationMs * bitrate / 8 / 1000
+
+        private fun preloadProgressive(cacheDataSourceFactory: CacheDataSource.Factory) {
+            val initialBitrate = source.bufferConfig.initialBitrate
+            bytesTarget = targetBytes(if (initialBitrate > 0) initialBitrate.toLong() else DEFAULT_BITRATE)
+            val dataSpec = DataSpec.Builder()
+                .setUri(source.uri!!)
+                .setLength(bytesTarget)
+                .build()
+            val writer = CacheWriter(cacheDataSourceFactory.createDataSource(), dataSpec, null) { _, cached, _ ->
+                bytesCached = cached
+            }
+            synchronized(this) {
+                if (status == Status.Cancelled) return
+                cacheWriter = writer
+            }
+            writer.cache()
+        }
+
+        private fun preloadAdaptive(cacheDataSourceFactory: CacheDataSource.Factory, mimeType: String) {
+            // Select a single rendition, the one the player is likely to start with
+            val bitrateEstimate = DefaultBandwidthMeter.getSingletonInstance(context).bitrateEstimate
+            val parameters = DownloadHelper.getDefaultTrackSelectorParameters(context)
+                .buildUpon()
+                .setForceHighestSupportedBitrate(true)
+                .setMaxVideoBitrate(if (bitrateEstimate > 0) bitrateEstimate.coerceAtMost(Int.MAX_VALUE.toLong()).toInt() else Int.MAX_VALUE)
+                .build()
+            val mediaItem = MediaItem.Builder()
+                .setUri(source.uri)
+                .setMimeType(mimeType)
+                .build()
+            val helper = DownloadHelper.forMediaItem(mediaItem, parameters, DefaultRenderersFactory(context), cacheDataSourceFactory)
+            val prepared = ConditionVariable()
+            var prepareError: IOException? = null
+            helper.prepare(object : DownloadHelper.Callback {
+                override fun onPrepared(helper: DownloadHelper) {
+                    prepared.open()
+                }
+
+                override fun onPrepareError(helper: DownloadHelper, e: IOException) {
+                    prepareError = e
+                    prepared.open()
+                }
+            })
+            try {
+                prepared.block()
+                prepareError?.let { throw it }
+                bytesTarget = targetBytes(selectedBitrate(helper))
+                val request = helper.getDownloadRequest(id, null)
+                val newDownloader = DefaultDownloaderFactory(cacheDataSourceFactory) { it.run() }.createDownloader(request)
+                synchronized(this) {
+                    if (status == Status.Cancelled) return
+                    downloader = newDownloader
+                }
+                newDownloader.download { _, bytesDownloaded, _ ->
+                    bytesCached = bytesDownloaded
+                    // Segments are downloaded in playback order, stop once the beginning of the content is cached
+                    if (bytesDownloaded >= bytesTarget && !budgetReached) {
+                        budgetReached = true
+                        newDownloader.cancel()
+                    }
+                }
+            } finally {
+                helper.release()
+            }
+        }
+
+        private fun selectedBitrate(helper: DownloadHelper): Long {
+            if (helper.periodCount == 0) return DEFAULT_BITRATE
+            var bitrate = 0L
+            for (rendererIndex in 0 until helper.getMappedTrackInfo(0).rendererCount) {
+                for (selection in helper.getTrackSelections(0, rendererIndex)) {
+                    val format = selection.getFormat(0)
+                    if (format.bitrate != Format.NO_VALUE) {
+                        bitrate += format.bitrate
+                    }
+                }
+            }
+            return if (bitrate > 0) bitrate else DEFAULT_BITRATE
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.brentvatne.exoplayer
+
+import androidx.media3.common.C
+import androidx.media3.common.Player
+import androidx.media3.common.Timeline
+import kotlin.math.abs
+
+/**
+ * Progress values of a player, sampled on each progress tick without allocating.
+ * A sample is reported only if the position or the buffered duration moved by at least the threshold, or if the duration changed.
+ * The tick interval backs off while the player is paused, hidden or in background.
+ */
+class RNVProgressTracker {
+    private val window = Timeline.Window()
+
+    /** Minimum change in ms of the position or buffered duration to report a sample, 0 to report any change */
+    var thresholdMs = 0L
+
+    var position = 0L
+        private set
+    var bufferedDuration = 0L
+        private set
+    var duration = 0L
+        private set
+
+    private var lastPosition = -1L
+    private var lastBufferedDuration = -1L
+    private var lastDuration = -1L
+
+    /**
+     * Sample the player.
+     * @param force report any change, ignoring the threshold
+     * @return true if the sample has to be reported
+     */
+    fun update(player: Player, force: Boolean): Boolean {
+        duration = player.duration
+        val hasDuration = duration != C.TIME_UNSET
+        position = player.currentPosition
+        if (hasDuration && position > duration) {
+            position = duration
+        }
+        bufferedDuration = if (hasDuration) minOf(player.bufferedPosition, duration) else 0
+
+        if (position == lastPosition && bufferedDuration == lastBufferedDuration && duration == lastDuration) {
+            return false
+        }
+        val threshold = if (force) 0 else thresholdMs
+        if (duration == lastDuration && abs(position - lastPosition) < threshold && abs(bufferedDuration - lastBufferedDuration) < threshold) {
+            return false
+        }
+        lastPosition = position
+        lastBufferedDuration = bufferedDuration
+        lastDuration = duration
+        return true
+    }
+
+    /** Forget the last reported sample, the next update is reported */
+    fun reset() {
+        lastPosition = -1
+        lastBufferedDuration = -1
+        lastDuration = -1
+    }
+
+    /** Position in the first period of the current window, i.e. the wall clock position of live streams */
+    fun getPositionInFirstPeriodMs(player: Player, currentPosition: Long): Double {
+        val timeline = player.currentTimeline
+        if (timeline.isEmpty) {
+            // A new Timeline.Window starts at 0
+            return currentPosition.toDouble()
+        }
+        timeline.getWindow(player.currentMediaItemIndex, window)
+        return (window.windowStartTimeMs + currentPosition).toDouble()
+    }
+
+    /**
+     * Delay until the next progress tick.
+     * @param intervalMs interval requested with the progressUpdateInterval prop
+     */
+    fun getTickIntervalMs(intervalMs: Long, isPlaying: Boolean, isVisible: Boolean, isInBackground: Boolean): Long =
+        when {
+            isInBackground -> maxOf(intervalMs, BACKGROUND_INTERVAL_MS)
+            !isVisible -> maxOf(intervalMs, HIDDEN_INTERVAL_MS)
+            !isPlaying -> maxOf(intervalMs, PAUSED_INTERVAL_MS)
+            else -> intervalMs
+        }
+
+    companion object {
+        const val PAUSED_INTERVAL_MS = 1000L
+        const val HIDDEN_INTERVAL_MS = 2000L
+        const val BACKGROUND_INTERVAL_MS = 5000L
+    }
+}
@@ -0,0 +1,74 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import java.util.EnumMap
+
+/**
+ * Timestamps of the startup phases of a source, from setSrc to the first rendered frame and onVideoLoad.
+ * Each phase is recorded once per source, marks may come from the main thread and from the background executor.
+ */
+class RNVStartupMetrics {
+
+    /** Startup phases, in their usual order */
+    enum class Phase(val value: String) {
+        SetSrc("setSrc"),
+        InitializeDispatch("initializeDispatch"),
+        DrmSessionStart("drmSessionStart"),
+        DrmSessionEnd("drmSessionEnd"),
+        BuildMediaSourceStart("buildMediaSourceStart"),
+        BuildMediaSourceEnd("buildMediaSourceEnd"),
+        Prepare("prepare"),
+        FirstBuffering("firstBuffering"),
+        Ready("ready"),
+        FirstFrame("firstFrame"),
+        VideoLoad("videoLoad")
+    }
+
+    /** Phases reached, in ms since setSrc */
+    data class Snapshot(val uri: String?, val phases: Map<Phase, Long>) {
+        val timeToFirstFrameMs: Long
+            get() = phases[Phase.FirstFrame] ?: phases[Phase.Ready] ?: -1
+    }
+
+    private val marks = EnumMap<Phase, Long>(Phase::class.java)
+    private var uri: String? = null
+    private var hasVideo = true
+    private var reported = true
+
+    /** Start measuring a new source, dropping the marks of the previous one */
+    @Synchronized
+    fun start(uri: String?) {
+        marks.clear()
+        this.uri = uri
+        hasVideo = true
+        reported = false
+        marks[Phase.SetSrc] = SystemClock.elapsedRealtime()
+    }
+
+    /** Record a phase, ignored if it has already been reached or if the metrics are reported */
+    @Synchronized
+    fun mark(phase: Phase) {
+        if (reported || marks.containsKey(phase)) return
+        marks[phase] = SystemClock.elapsedRealtime()
+    }
+
+    /** Audio only sources never render a frame, they are complete on onVideoLoad */
+    @Synchronized
+    fun setHasVideo(hasVideo: Boolean) {
+        this.hasVideo = hasVideo
+    }
+
+    /**
+     * @return the metrics if they are complete and not reported yet, null otherwise.
+     * Further marks are ignored until the next start.
+     */
+    @Synchronized
+    fun takeIfComplete(): Snapshot? {
+        if (reported || !marks.containsKey(Phase.VideoLoad) || (hasVideo && !marks.containsKey(Phase.FirstFrame))) {
+            return null
+        }
+        reported = true
+        val startMs = marks.getValue(Phase.SetSrc)
+        return Snapshot(uri, marks.mapValuesTo(EnumMap(Phase::class.java)) { it.value - startMs })
+    }
+}
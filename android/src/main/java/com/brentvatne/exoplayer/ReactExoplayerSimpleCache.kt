@@ -3,31 +3,272 @@ package com.brentvatne.exoplayer
 import android.content.Context
 import androidx.media3.database.StandaloneDatabaseProvider
 import androidx.media3.datasource.DataSource
-import androidx.media3.datasource.HttpDataSource
 import androidx.media3.datasource.cache.CacheDataSource
-import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor
+import androidx.media3.datasource.cache.CacheKeyFactory
 import androidx.media3.datasource.cache.SimpleCache
+import com.brentvatne.common.toolbox.DebugLog
 import java.io.File
 
+/**
+ * Process wide owner of the media caches.
+ * Each cache namespace is backed by its own folder and byte budget, and is reference counted by its users
+ * (player views, preloads...). A namespace stays open while idle so that views coming and going do not
+ * reopen the cache index; it is closed by an explicit releaseCache call once its last user released it.
+ * All namespaces share one database provider, closed with the last open cache.
+ */
 object RNVSimpleCache {
-    // TODO: when to release? how to check if cache is released?
-    private var simpleCache: SimpleCache? = null
-
-    fun setSimpleCache(context: Context, cacheSize: Int) {
-        if (simpleCache != null || cacheSize <= 0) return
-        simpleCache = SimpleCache(
-            File(context.cacheDir, "RNVCache"),
-            LeastRecentlyUsedCacheEvictor(
-                cacheSize.toLong() * 1024 * 1024
-            ),
-            StandaloneDatabaseProvider(context)
-        )
-    }
-
-    fun getCacheFactory(factory: HttpDataSource.Factory): DataSource.Factory {
-        if (simpleCache == null) return factory
+    private const val TAG = "RNVSimpleCache"
+
+    const val DEFAULT_NAMESPACE = "default"
+    private const val CACHE_FOLDER = "RNVCache"
+
+    private class CacheEntry(val namespace: String, val folder: File, val cache: SimpleCache, val evictor: RNVCacheEvictor) {
+        var refCount = 0
+        var releasePending = false
+    }
+
+    /** Snapshot of one open namespace, reported to JS by VideoManagerModule.getCacheState */
+    data class CacheState(
+        val namespace: String,
+        val refCount: Int,
+        val maxBytes: Long,
+        val usedBytes: Long,
+        val releasePending: Boolean,
+        val folder: String,
+        val classBytes: Map<RNVCacheEvictor.Priority, Long>
+    )
+
+    private val caches = HashMap<String, CacheEntry>()
+    private val stats = HashMap<String, RNVCacheStats>()
+    private var databaseProvider: StandaloneDatabaseProvider? = null
+
+    /**
+     * Database of the cache indexes, also used by the download index so that a single helper opens the file.
+     * Kept open for the lifetime of the process.
+     */
+    @JvmStatic
+    @Synchronized
+    fun getDatabaseProvider(context: Context): StandaloneDatabaseProvider =
+        databaseProvider ?: StandaloneDatabaseProvider(context.applicationContext).also { databaseProvider = it }
+
+    @JvmStatic
+    fun resolveNamespace(namespace: String?): String = if (namespace.isNullOrEmpty()) DEFAULT_NAMESPACE else namespace
+
+    /**
+     * Open the cache if needed and take a reference on it.
+     * A cacheSizeMB different from the current budget resizes the namespace: the last requested size wins.
+     * @return false if no cache could be provided (invalid size or cache folder failure)
+     */
+    @JvmStatic
+    @Synchronized
+    fun acquire(context: Context, namespace: String?, cacheSizeMB: Int): Boolean {
+        if (cacheSizeMB <= 0) return false
+        val ns = resolveNamespace(namespace)
+        val maxBytes = cacheSizeMB.toLong() * 1024 * 1024
+        val entry = caches[ns] ?: open(context, ns, maxBytes) ?: return false
+        if (entry.evictor.maxBytes != maxBytes) {
+            DebugLog.d(TAG, "resize cache $ns from ${entry.evictor.maxBytes} to $maxBytes bytes")
+            entry.evictor.setMaxBytes(entry.cache, maxBytes)
+        }
+        entry.refCount++
+        entry.releasePending = false
+        return true
+    }
+
+    /** Drop a reference taken by acquire. Closes the namespace if a release was requested meanwhile */
+    @JvmStatic
+    @Synchronized
+    fun release(namespace: String?) {
+        val ns = resolveNamespace(namespace)
+        val entry = caches[ns] ?: return
+        if (entry.refCount > 0) {
+            entry.refCount--
+        }
+        if (entry.refCount == 0 && entry.releasePending) {
+            close(entry)
+        }
+    }
+
+    /**
+     * Change the byte budget of an open namespace, evicting immediately when shrinking.
+     * @return false if the namespace is not open
+     */
+    @JvmStatic
+    @Synchronized
+    fun resize(namespace: String?, cacheSizeMB: Int): Boolean {
+        if (cacheSizeMB <= 0) return false
+        val entry = caches[resolveNamespace(namespace)] ?: return false
+        entry.evictor.setMaxBytes(entry.cache, cacheSizeMB.toLong() * 1024 * 1024)
+        return true
+    }
+
+    /**
+     * Close a namespace. If it is still used, closing is deferred until its last user releases it.
+     * @return true if the cache has been closed now
+     */
+    @JvmStatic
+    @Synchronized
+    fun releaseCache(namespace: String?): Boolean {
+        val entry = caches[resolveNamespace(namespace)] ?: return false
+        if (entry.refCount > 0) {
+            entry.releasePending = true
+            return false
+        }
+        close(entry)
+        return true
+    }
+
+    @JvmStatic
+    @Synchronized
+    fun isOpen(namespace: String?): Boolean = caches.containsKey(resolveNamespace(namespace))
+
+    @JvmStatic
+    @Synchronized
+    fun getCache(namespace: String?): SimpleCache? = caches[resolveNamespace(namespace)]?.cache
+
+    @JvmStatic
+    @Synchronized
+    fun getState(): List<CacheState> =
+        caches.values.map {
+            CacheState(
+                it.namespace,
+                it.refCount,
+                it.evictor.maxBytes,
+                it.cache.cacheSpace,
+                it.releasePending,
+                it.folder.absolutePath,
+                RNVCacheEvictor.Priority.values().associateWith { priority -> it.evictor.getClassSize(priority) }
+            )
+        }
+
+    /**
+     * Traffic counters of every namespace opened since process start, with the current usage of the open ones.
+     */
+    @JvmStatic
+    @Synchronized
+    fun getStats(): List<RNVCacheStats.Snapshot> = stats.keys.mapNotNull { getStats(it) }
+
+    /** @return counters of the namespace, null if it has never been opened */
+    @JvmStatic
+    @Synchronized
+    fun getStats(namespace: String?): RNVCacheStats.Snapshot? {
+        val ns = resolveNamespace(namespace)
+        val entry = caches[ns]
+        return stats[ns]?.snapshot(ns, entry?.cache?.cacheSpace ?: 0, entry?.evictor?.maxBytes ?: 0)
+    }
+
+    /**
+     * Wrap upstream factory with the namespace cache, upstream factory is returned if the namespace is not open
+     * @param cacheKeyFactory key factory to use, null for the media3 default one
+     * @param priority eviction class of the keys read through the factory
+     */
+    @JvmStatic
+    fun getCacheFactory(
+        namespace: String?,
+        factory: DataSource.Factory,
+        cacheKeyFactory: CacheKeyFactory?,
+        priority: RNVCacheEvictor.Priority
+    ): DataSource.Factory = buildCacheDataSourceFactory(namespace, factory, cacheKeyFactory, priority, 0) ?: factory
+
+    /**
+     * Build a factory reading and writing the namespace cache.
+     * @param pinnedBytes pinned length of the keys written through the factory, 0 to not pin, C.LENGTH_UNSET for whole keys
+     * @param pinGroup source key the pinned keys are recorded under, so that unpinning the source unpins them
+     * @return null if the namespace is not open
+     */
+    @JvmStatic
+    fun buildCacheDataSourceFactory(
+        namespace: String?,
+        factory: DataSource.Factory,
+        cacheKeyFactory: CacheKeyFactory?,
+        priority: RNVCacheEvictor.Priority,
+        pinnedBytes: Long,
+        pinGroup: String? = null
+    ): CacheDataSource.Factory? {
+        val (entry, cacheStats) = synchronized(this) {
+            val ns = resolveNamespace(namespace)
+            val entry = caches[ns] ?: return null
+            Pair(entry, stats.getValue(ns))
+        }
+        val keyFactory = cacheKeyFactory ?: CacheKeyFactory.DEFAULT
         return CacheDataSource.Factory()
-            .setCache(simpleCache!!)
-            .setUpstreamDataSourceFactory(factory)
+            .setCache(entry.cache)
+            .setUpstreamDataSourceFactory(cacheStats.wrapUpstream(factory))
+            .setEventListener(cacheStats)
+            .setCacheKeyFactory(
+                if (priority == RNVCacheEvictor.Priority.Normal && pinnedBytes == 0L) {
+                    keyFactory
+                } else {
+                    RNVCacheEvictor.PriorityCacheKeyFactory(keyFactory, entry.cache, entry.evictor, priority, pinnedBytes, pinGroup)
+                }
+            )
+    }
+
+    /**
+     * Set the eviction class of a key.
+     * @return false if the namespace is not open
+     */
+    @JvmStatic
+    fun setPriority(namespace: String?, key: String, priority: RNVCacheEvictor.Priority): Boolean {
+        val entry = getEntry(namespace) ?: return false
+        entry.evictor.setPriority(entry.cache, key, priority)
+        return true
+    }
+
+    /**
+     * Pin the beginning of a key, C.LENGTH_UNSET bytes for the whole key.
+     * @return false if the namespace is not open
+     */
+    @JvmStatic
+    fun pin(namespace: String?, key: String, bytes: Long): Boolean {
+        val entry = getEntry(namespace) ?: return false
+        entry.evictor.pin(entry.cache, key, bytes)
+        return true
+    }
+
+    @JvmStatic
+    fun unpin(namespace: String?, key: String): Boolean {
+        val entry = getEntry(namespace) ?: return false
+        entry.evictor.unpin(entry.cache, key)
+        return true
+    }
+
+    /**
+     * Set the byte budget of an eviction class, C.LENGTH_UNSET for none.
+     * @return false if the namespace is not open
+     */
+    @JvmStatic
+    fun setClassBudget(namespace: String?, priority: RNVCacheEvictor.Priority, bytes: Long): Boolean {
+        val entry = getEntry(namespace) ?: return false
+        entry.evictor.setClassBudget(entry.cache, priority, bytes)
+        return true
+    }
+
+    @Synchronized
+    private fun getEntry(namespace: String?): CacheEntry? = caches[resolveNamespace(namespace)]
+
+    private fun open(context: Context, namespace: String, maxBytes: Long): CacheEntry? {
+        // Default namespace keeps the historical folder so existing caches are reused
+        val folderName = if (namespace == DEFAULT_NAMESPACE) CACHE_FOLDER else CACHE_FOLDER + "_" + namespace.replace(Regex("[^A-Za-z0-9_-]"), "_")
+        val folder = File(context.applicationContext.cacheDir, folderName)
+        val provider = getDatabaseProvider(context)
+        val cacheStats = stats.getOrPut(namespace) { RNVCacheStats() }
+        val evictor = RNVCacheEvictor(maxBytes, cacheStats)
+        return try {
+            val entry = CacheEntry(namespace, folder, SimpleCache(folder, evictor, provider), evictor)
+            caches[namespace] = entry
+            DebugLog.d(TAG, "open cache $namespace in ${folder.absolutePath} ($maxBytes bytes)")
+            entry
+        } catch (e: IllegalStateException) {
+            // Thrown if the folder is already used by another SimpleCache instance
+            DebugLog.e(TAG, "failed to open cache $namespace: ${e.message}")
+            null
+        }
+    }
+
+    private fun close(entry: CacheEntry) {
+        DebugLog.d(TAG, "release cache ${entry.namespace}")
+        caches.remove(entry.namespace)
+        entry.cache.release()
     }
 }
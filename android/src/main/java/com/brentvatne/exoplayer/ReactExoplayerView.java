@@ -9,7 +9,6 @@ import static androidx.media3.common.C.TIME_END_OF_SOURCE;
 
 import android.annotation.SuppressLint;
 import android.app.Activity;
-import android.app.ActivityManager;
 import android.app.PictureInPictureParams;
 import android.app.RemoteAction;
 import android.app.AlertDialog;
@@ -24,6 +23,7 @@ import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
@@ -36,7 +36,6 @@ import android.widget.TextView;
 import androidx.activity.OnBackPressedCallback;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.annotation.WorkerThread;
 import androidx.media3.common.AudioAttributes;
 import androidx.media3.common.C;
 import androidx.media3.common.Format;
@@ -60,7 +59,6 @@ import androidx.media3.exoplayer.DefaultLoadControl;
 import androidx.media3.exoplayer.DefaultRenderersFactory;
 import androidx.media3.exoplayer.ExoPlayer;
 import androidx.media3.exoplayer.dash.DashMediaSource;
-import androidx.media3.exoplayer.dash.DashUtil;
 import androidx.media3.exoplayer.dash.DefaultDashChunkSource;
 import androidx.media3.exoplayer.dash.manifest.AdaptationSet;
 import androidx.media3.exoplayer.dash.manifest.DashManifest;
@@ -78,6 +76,7 @@ import androidx.media3.exoplayer.hls.HlsMediaSource;
 import androidx.media3.exoplayer.ima.ImaAdsLoader;
 import androidx.media3.exoplayer.mediacodec.MediaCodecInfo;
 import androidx.media3.exoplayer.mediacodec.MediaCodecUtil;
+import androidx.media3.exoplayer.offline.Download;
 import androidx.media3.exoplayer.rtsp.RtspMediaSource;
 import androidx.media3.exoplayer.smoothstreaming.DefaultSsChunkSource;
 import androidx.media3.exoplayer.smoothstreaming.SsMediaSource;
@@ -88,9 +87,7 @@ import androidx.media3.exoplayer.source.MergingMediaSource;
 import androidx.media3.exoplayer.source.ProgressiveMediaSource;
 import androidx.media3.exoplayer.source.TrackGroupArray;
 import androidx.media3.exoplayer.source.ads.AdsMediaSource;
-import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection;
 import androidx.media3.exoplayer.trackselection.DefaultTrackSelector;
-import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
 import androidx.media3.exoplayer.trackselection.MappingTrackSelector;
 import androidx.media3.exoplayer.trackselection.TrackSelection;
 import androidx.media3.exoplayer.trackselection.TrackSelectionArray;
@@ -116,6 +113,7 @@ import com.brentvatne.common.api.SubtitleStyle;
 import com.brentvatne.common.api.TimedMetadata;
 import com.brentvatne.common.api.Track;
 import com.brentvatne.common.api.VideoTrack;
+import com.brentvatne.common.api.ViewType;
 import com.brentvatne.common.react.VideoEventEmitter;
 import com.brentvatne.common.toolbox.DebugLog;
 import com.brentvatne.common.toolbox.ReactBridgeUtils;
@@ -145,11 +143,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 @SuppressLint("ViewConstructor")
 public class ReactExoplayerView extends FrameLayout implements
@@ -163,11 +156,14 @@ public class ReactExoplayerView extends FrameLayout implements
 
     public static final double DEFAULT_MAX_HEAP_ALLOCATION_PERCENT = 1;
     public static final double DEFAULT_MIN_BUFFER_MEMORY_RESERVE = 0;
+    // Media loaded at the lowest rendition with the fast startup mode, about two segments
+    private static final long DEFAULT_FAST_START_DURATION_MS = 4000;
 
     private static final String TAG = "ReactExoplayerView";
 
     private static final CookieManager DEFAULT_COOKIE_MANAGER;
     private static final int SHOW_PROGRESS = 1;
+    private static final int SHOW_CACHE_STATS = 2;
 
     static {
         DEFAULT_COOKIE_MANAGER = new CookieManager();
@@ -212,12 +208,25 @@ public class ReactExoplayerView extends FrameLayout implements
     private int maxBitRate = 0;
     private boolean hasDrmFailed = false;
     private boolean isUsingContentResolution = false;
+    // Content video tracks found in the player DASH manifest, null until found
+    private ArrayList<VideoTrack> manifestVideoTracks;
+    // Start of the last manifest period scanned for content video tracks
+    private long lastScannedPeriodStartMs = C.TIME_UNSET;
     private boolean selectTrackWhenReady = false;
     private final Handler mainHandler;
     private Runnable mainRunnable;
+    private Source pendingSource;
+    private RNVDrmSessionPool.WarmDrmSessionManager claimedDrmSessionManager;
     private Runnable pipListenerUnsubscribe;
     private boolean useCache = false;
     private boolean disableCache = false;
+    // Components the player has been built with, handed back to the player pool on release
+    private RNVLoadControl loadControl;
+    private RNVCacheAwareTrackSelection.Factory trackSelectionFactory;
+    private final RNVStartupMetrics startupMetrics = new RNVStartupMetrics();
+    private DefaultMediaSourceFactory playerMediaSourceFactory;
+    // Cache namespace this view holds a reference on, null if none
+    private String acquiredCacheNamespace = null;
     private ControlsConfig controlsConfig = new ControlsConfig();
     private ArrayList<Integer> rootViewChildrenOriginalVisibility = new ArrayList<Integer>();
 
@@ -240,11 +249,17 @@ public class ReactExoplayerView extends FrameLayout implements
     private boolean disableFocus;
     private boolean focusable = true;
     private BufferingStrategy.BufferingStrategyEnum bufferingStrategy;
+    private int viewType = ViewType.VIEW_TYPE_SURFACE;
     private boolean disableDisconnectError;
     private boolean preventsDisplaySleepDuringVideoPlayback = true;
     private float mProgressUpdateInterval = 250.0f;
     protected boolean playInBackground = false;
     private boolean mReportBandwidth = false;
+    private float bandwidthReportInterval = 0f;
+    private final RNVBandwidthStats bandwidthStats = new RNVBandwidthStats();
+    private final Runnable bandwidthWindowRunnable = this::reportBandwidthWindow;
+    private final RNVMemoryMonitor.Listener memoryPressureListener;
+    private float cacheStatsUpdateInterval = 0.0f;
     private boolean controls = false;
 
     private boolean showNotificationControls = false;
@@ -257,10 +272,9 @@ public class ReactExoplayerView extends FrameLayout implements
     private final PictureInPictureReceiver pictureInPictureReceiver;
     private final AudioManager.OnAudioFocusChangeListener audioFocusChangeListener;
 
-    // store last progress event values to avoid sending unnecessary messages
-    private long lastPos = -1;
-    private long lastBufferDuration = -1;
-    private long lastDuration = -1;
+    // Samples progress and keeps the last reported values to avoid sending unnecessary messages
+    private final RNVProgressTracker progressTracker = new RNVProgressTracker();
+    private boolean isViewVisible = true;
 
     private boolean viewHasDropped = false;
     private int selectedSpeedIndex = 1; // Default is 1.0x
@@ -273,26 +287,70 @@ public class ReactExoplayerView extends FrameLayout implements
         this.cmcdConfigurationFactory = factory;
     }
 
-    private void updateProgress() {
+    /**
+     * @param force report any change, ignoring progressUpdateThreshold
+     */
+    private void updateProgress(boolean force) {
         if (player != null) {
             if (exoPlayerView != null && isPlayingAd() && controls) {
                 exoPlayerView.hideController();
             }
-            long bufferedDuration = player.getBufferedPercentage() * player.getDuration() / 100;
-            long duration = player.getDuration();
-            long pos = player.getCurrentPosition();
-            if (pos > duration) {
-                pos = duration;
+            publishPlaybackSnapshot();
+            if (progressTracker.update(player, force)) {
+                long pos = progressTracker.getPosition();
+                eventEmitter.onVideoProgress.invoke(pos, progressTracker.getBufferedDuration(), progressTracker.getDuration(),
+                        getPositionInFirstPeriodMsForCurrentWindow(pos));
             }
+        }
+    }
 
-            if (lastPos != pos
-                    || lastBufferDuration != bufferedDuration
-                    || lastDuration != duration) {
-                lastPos = pos;
-                lastBufferDuration = bufferedDuration;
-                lastDuration = duration;
-                eventEmitter.onVideoProgress.invoke(pos, bufferedDuration, player.getDuration(), getPositionInFirstPeriodMsForCurrentWindow(pos));
-            }
+    /**
+     * Publish the playback state for VideoManagerModule getters, read without any thread hop.
+     */
+    private void publishPlaybackSnapshot() {
+        if (player == null || getId() == View.NO_ID) {
+            return;
+        }
+        String state;
+        switch (player.getPlaybackState()) {
+            case Player.STATE_BUFFERING:
+                state = "buffering";
+                break;
+            case Player.STATE_READY:
+                state = "ready";
+                break;
+            case Player.STATE_ENDED:
+                state = "ended";
+                break;
+            default:
+                state = "idle";
+                break;
+        }
+        Format videoFormat = player.getVideoFormat();
+        RNVPlaybackSnapshots.publish(getId(), new RNVPlaybackSnapshots.Snapshot(
+                player.getCurrentPosition(),
+                player.getBufferedPosition(),
+                player.getDuration(),
+                state,
+                player.isPlaying(),
+                player.getPlaybackParameters().speed,
+                videoFormat != null ? videoFormat.bitrate : Format.NO_VALUE,
+                SystemClock.elapsedRealtime()));
+    }
+
+    private long getProgressTickIntervalMs() {
+        boolean isPlaying = player != null && player.isPlaying();
+        return progressTracker.getTickIntervalMs(Math.round(mProgressUpdateInterval), isPlaying, isViewVisible, isInBackground);
+    }
+
+    /**
+     * Run the pending progress tick now, so that a backed off interval does not delay the next event
+     * once the player plays again or is visible again.
+     */
+    private void rescheduleProgress() {
+        if (progressHandler.hasMessages(SHOW_PROGRESS)) {
+            progressHandler.removeMessages(SHOW_PROGRESS);
+            progressHandler.sendEmptyMessage(SHOW_PROGRESS);
         }
     }
 
@@ -300,19 +358,20 @@ public class ReactExoplayerView extends FrameLayout implements
         @Override
         public void handleMessage(Message msg) {
             if (msg.what == SHOW_PROGRESS) {
-                updateProgress();
-                msg = obtainMessage(SHOW_PROGRESS);
-                sendMessageDelayed(msg, Math.round(mProgressUpdateInterval));
+                updateProgress(false);
+                sendEmptyMessageDelayed(SHOW_PROGRESS, getProgressTickIntervalMs());
+            } else if (msg.what == SHOW_CACHE_STATS) {
+                RNVCacheStats.Snapshot stats = RNVSimpleCache.getStats(acquiredCacheNamespace);
+                if (stats != null) {
+                    eventEmitter.onCacheStats.invoke(stats);
+                }
+                sendEmptyMessageDelayed(SHOW_CACHE_STATS, Math.round(cacheStatsUpdateInterval));
             }
         }
     };
 
     public double getPositionInFirstPeriodMsForCurrentWindow(long currentPosition) {
-        Timeline.Window window = new Timeline.Window();
-        if(!player.getCurrentTimeline().isEmpty()) {
-            player.getCurrentTimeline().getWindow(player.getCurrentMediaItemIndex(), window);
-        }
-        return window.windowStartTimeMs + currentPosition;
+        return progressTracker.getPositionInFirstPeriodMs(player, currentPosition);
     }
 
     public ReactExoplayerView(ThemedReactContext context, ReactExoplayerConfig config) {
@@ -333,6 +392,10 @@ public class ReactExoplayerView extends FrameLayout implements
         audioBecomingNoisyReceiver = new AudioBecomingNoisyReceiver(themedReactContext);
         audioFocusChangeListener = new OnAudioFocusChangedListener(this, themedReactContext);
         pictureInPictureReceiver = new PictureInPictureReceiver(this, themedReactContext);
+        memoryPressureListener = (level, previousLevel) ->
+                eventEmitter.onMemoryPressure.invoke(level.getValue(), previousLevel.getValue());
+        ReactNativeVideoManager.Companion.getInstance().getMemoryMonitor().attach(context);
+        ReactNativeVideoManager.Companion.getInstance().getMemoryMonitor().addListener(memoryPressureListener);
     }
 
     private boolean isPlayingAd() {
@@ -357,6 +420,15 @@ public class ReactExoplayerView extends FrameLayout implements
         exoPlayerView.setFocusable(this.focusable);
     }
 
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        isViewVisible = isVisible;
+        if (isVisible) {
+            rescheduleProgress();
+        }
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         cleanupPlaybackService();
@@ -370,6 +442,7 @@ public class ReactExoplayerView extends FrameLayout implements
             setPlayWhenReady(!isPaused);
         }
         isInBackground = false;
+        rescheduleProgress();
     }
 
     @Override
@@ -393,26 +466,60 @@ public class ReactExoplayerView extends FrameLayout implements
         stopPlayback();
         themedReactContext.removeLifecycleEventListener(this);
         releasePlayer();
+        ReactNativeVideoManager.Companion.getInstance().getMemoryMonitor().removeListener(memoryPressureListener);
+        eventEmitter.release();
         viewHasDropped = true;
     }
 
     //BandwidthMeter.EventListener implementation
     @Override
     public void onBandwidthSample(int elapsedMs, long bytes, long bitrate) {
-        if (mReportBandwidth) {
-            if (player == null) {
-                eventEmitter.onVideoBandwidthUpdate.invoke(bitrate, 0, 0, null);
+        bandwidthStats.addSample(elapsedMs, bytes, bitrate);
+        if (!mReportBandwidth) {
+            return;
+        }
+        if (bandwidthReportInterval > 0) {
+            // One summary per window instead of one event per sample, the timer sends it even if transfers stop
+            long remainingMs = Math.round(bandwidthReportInterval) - bandwidthStats.getWindowElapsedMs();
+            mainHandler.removeCallbacks(bandwidthWindowRunnable);
+            if (remainingMs > 0) {
+                mainHandler.postDelayed(bandwidthWindowRunnable, remainingMs);
             } else {
-                Format videoFormat = player.getVideoFormat();
-                boolean isRotatedContent = videoFormat != null && (videoFormat.rotationDegrees == 90 || videoFormat.rotationDegrees == 270);
-                int width = videoFormat != null ? (isRotatedContent ? videoFormat.height : videoFormat.width) : 0;
-                int height = videoFormat != null ? (isRotatedContent ? videoFormat.width : videoFormat.height) : 0;
-                String trackId = videoFormat != null ? videoFormat.id : null;
-                eventEmitter.onVideoBandwidthUpdate.invoke(bitrate, height, width, trackId);
+                reportBandwidthWindow();
             }
+            return;
+        }
+        emitBandwidthUpdate(null, bitrate);
+    }
+
+    private void reportBandwidthWindow() {
+        mainHandler.removeCallbacks(bandwidthWindowRunnable);
+        RNVBandwidthStats.Summary summary = bandwidthStats.takeWindowSummary();
+        if (summary != null) {
+            emitBandwidthUpdate(summary, summary.getBitrateEstimate());
+        }
+    }
+
+    private void emitBandwidthUpdate(RNVBandwidthStats.Summary summary, long bitrate) {
+        Format videoFormat = player != null ? player.getVideoFormat() : null;
+        boolean isRotatedContent = videoFormat != null && (videoFormat.rotationDegrees == 90 || videoFormat.rotationDegrees == 270);
+        int width = videoFormat != null ? (isRotatedContent ? videoFormat.height : videoFormat.width) : 0;
+        int height = videoFormat != null ? (isRotatedContent ? videoFormat.width : videoFormat.height) : 0;
+        String trackId = videoFormat != null ? videoFormat.id : null;
+        if (summary != null) {
+            eventEmitter.onVideoBandwidthSummary.invoke(summary, height, width, trackId);
+        } else {
+            eventEmitter.onVideoBandwidthUpdate.invoke(bitrate, height, width, trackId);
         }
     }
 
+    /**
+     * @return throughput of the last transfers since the source was set, of all players as they share the meter, null if none
+     */
+    public RNVBandwidthStats.Summary getBandwidthStats() {
+        return bandwidthStats.getRecentSummary();
+    }
+
     // Internal methods
 
     /**
@@ -551,115 +658,60 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     public void setViewType(int viewType) {
+        this.viewType = viewType;
         exoPlayerView.updateSurfaceView(viewType);
     }
 
-    private class RNVLoadControl extends DefaultLoadControl {
-        private final int availableHeapInBytes;
-        private final Runtime runtime;
-        public RNVLoadControl(DefaultAllocator allocator, BufferConfig config) {
-            super(allocator,
-                    config.getMinBufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getMinBufferMs()
-                            : DefaultLoadControl.DEFAULT_MIN_BUFFER_MS,
-                    config.getMaxBufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getMaxBufferMs()
-                            : DefaultLoadControl.DEFAULT_MAX_BUFFER_MS,
-                    config.getBufferForPlaybackMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBufferForPlaybackMs()
-                            : DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS ,
-                    config.getBufferForPlaybackAfterRebufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBufferForPlaybackAfterRebufferMs()
-                            : DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS,
-                    -1,
-                    true,
-                    config.getBackBufferDurationMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBackBufferDurationMs()
-                            : DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS,
-                    DefaultLoadControl.DEFAULT_RETAIN_BACK_BUFFER_FROM_KEYFRAME);
-            runtime = Runtime.getRuntime();
-            ActivityManager activityManager = (ActivityManager) themedReactContext.getSystemService(ThemedReactContext.ACTIVITY_SERVICE);
-            double maxHeap = config.getMaxHeapAllocationPercent() != BufferConfig.Companion.getBufferConfigPropUnsetDouble()
-                    ? config.getMaxHeapAllocationPercent()
-                    : DEFAULT_MAX_HEAP_ALLOCATION_PERCENT;
-            availableHeapInBytes = (int) Math.floor(activityManager.getMemoryClass() * maxHeap * 1024 * 1024);
-        }
-
-        @Override
-        public boolean shouldContinueLoading(long playbackPositionUs, long bufferedDurationUs, float playbackSpeed) {
-            if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DisableBuffering) {
-                return false;
-            } else if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DependingOnMemory) {
-                // The goal of this algorithm is to pause video loading (increasing the buffer)
-                // when available memory on device become low.
-                int loadedBytes = getAllocator().getTotalBytesAllocated();
-                boolean isHeapReached = availableHeapInBytes > 0 && loadedBytes >= availableHeapInBytes;
-                if (isHeapReached) {
-                    return false;
-                }
-                long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-                long freeMemory = runtime.maxMemory() - usedMemory;
-                double minBufferMemoryReservePercent = source.getBufferConfig().getMinBufferMemoryReservePercent() != BufferConfig.Companion.getBufferConfigPropUnsetDouble()
-                        ? source.getBufferConfig().getMinBufferMemoryReservePercent()
-                        : ReactExoplayerView.DEFAULT_MIN_BUFFER_MEMORY_RESERVE;
-                long reserveMemory = (long) minBufferMemoryReservePercent * runtime.maxMemory();
-                long bufferedMs = bufferedDurationUs / (long) 1000;
-                if (reserveMemory > freeMemory && bufferedMs > 2000) {
-                    // We don't have enough memory in reserve so we stop buffering to allow other components to use it instead
-                    return false;
-                }
-                if (runtime.freeMemory() == 0) {
-                    DebugLog.w(TAG, "Free memory reached 0, forcing garbage collection");
-                    runtime.gc();
-                    return false;
-                }
-            }
-            // "default" case or normal case for "DependingOnMemory"
-            return super.shouldContinueLoading(playbackPositionUs, bufferedDurationUs, playbackSpeed);
-        }
+    private void initializePlayer() {
+        initializePlayer(false);
     }
 
-    private void initializePlayer() {
+    /**
+     * @param immediate run the initialization now, otherwise it is posted so that props set after
+     * the source (outside of a props transaction) are applied first
+     */
+    private void initializePlayer(boolean immediate) {
         disableCache = ReactNativeVideoManager.Companion.getInstance().shouldDisableCache(source);
 
         ReactExoplayerView self = this;
         Activity activity = themedReactContext.getCurrentActivity();
         // This ensures all props have been settled, to avoid async racing conditions.
         Source runningSource = source;
+        if (mainRunnable != null) {
+            // A pending initialization of a previous source is superseded by this one
+            mainHandler.removeCallbacks(mainRunnable);
+        }
         mainRunnable = () -> {
             if (viewHasDropped && runningSource == source) {
                 return;
             }
+            startupMetrics.mark(RNVStartupMetrics.Phase.InitializeDispatch);
             try {
                 if (runningSource.getUri() == null) {
                     return;
                 }
 
+                // Cache must be acquired before core initialization, media source factory depends on it
+                updateCacheAcquisition(runningSource);
                 if (player == null) {
                     // Initialize core configuration and listeners
                     initializePlayerCore(self);
                     pipListenerUnsubscribe = PictureInPictureUtil.addLifecycleEventListener(themedReactContext, this);
                     PictureInPictureUtil.applyAutoEnterEnabled(themedReactContext, pictureInPictureParamsBuilder, this.enterPictureInPictureOnLeave);
                 }
-                if (!source.isLocalAssetFile() && !source.isAsset() && source.getBufferConfig().getCacheSize() > 0) {
-                    RNVSimpleCache.INSTANCE.setSimpleCache(
-                            this.getContext(),
-                            source.getBufferConfig().getCacheSize()
-                    );
-                    useCache = true;
-                } else {
-                    useCache = false;
-                }
+                updateTrackSelectionCache(runningSource);
+                updateTrackSelectionAbr(runningSource);
                 if (playerNeedsSource) {
                     // Will force display of shutter view if needed
                     exoPlayerView.invalidateAspectRatio();
-                    // DRM session manager creation must be done on a different thread to prevent crashes so we start a new thread
-                    ExecutorService es = Executors.newSingleThreadExecutor();
-                    es.execute(() -> {
+                    // DRM session manager creation must be done on a different thread to prevent crashes
+                    getExecutor().execute(this, RNVExecutor.Priority.DrmSetup, () -> {
                         // DRM initialization must run on a different thread
-                        if (viewHasDropped && runningSource == source) {
+                        if ((viewHasDropped && runningSource == source) || !runningSource.isEquals(source)) {
                             return;
                         }
+                        // Completed downloads are looked up in memory by buildMediaSource on the main thread
+                        RNVDownloadManager.loadCompletedDownloads(themedReactContext);
                         if (activity == null) {
                             DebugLog.e(TAG, "Failed to initialize Player!, null activity");
                             eventEmitter.onVideoError.invoke("Failed to initialize Player!", new Exception("Current Activity is null!"), "1001");
@@ -668,7 +720,7 @@ public class ReactExoplayerView extends FrameLayout implements
 
                         // Initialize handler to run on the main thread
                         activity.runOnUiThread(() -> {
-                            if (viewHasDropped && runningSource == source) {
+                            if ((viewHasDropped && runningSource == source) || !runningSource.isEquals(source)) {
                                 return;
                             }
                             try {
@@ -694,7 +746,116 @@ public class ReactExoplayerView extends FrameLayout implements
                 eventEmitter.onVideoError.invoke(ex.toString(), ex, "1001");
             }
         };
-        mainHandler.postDelayed(mainRunnable, 1);
+        if (immediate) {
+            mainRunnable.run();
+        } else {
+            mainHandler.postDelayed(mainRunnable, 1);
+        }
+    }
+
+    /**
+     * Take a reference on the cache namespace requested by the source, and drop the previously held one.
+     * Release happens after acquire so that reusing the same namespace never closes it.
+     */
+    private void updateCacheAcquisition(Source runningSource) {
+        String previousNamespace = acquiredCacheNamespace;
+        BufferConfig bufferConfig = runningSource.getBufferConfig();
+        acquiredCacheNamespace = null;
+        if (!runningSource.isLocalAssetFile() && !runningSource.isAsset() && bufferConfig.getCacheSize() > 0
+                && RNVSimpleCache.acquire(getContext(), bufferConfig.getCacheNamespace(), bufferConfig.getCacheSize())) {
+            acquiredCacheNamespace = RNVSimpleCache.resolveNamespace(bufferConfig.getCacheNamespace());
+        }
+        useCache = acquiredCacheNamespace != null;
+        if (previousNamespace != null) {
+            RNVSimpleCache.release(previousNamespace);
+        }
+        updateCacheStatsReporting();
+    }
+
+    /**
+     * Let adaptive track selection prefer cached renditions if requested by the source.
+     * Applies to the track selections made for the next source.
+     */
+    private void updateTrackSelectionCache(Source runningSource) {
+        BufferConfig bufferConfig = runningSource.getBufferConfig();
+        if (useCache && !disableCache && bufferConfig.getPreferCachedTracks()) {
+            trackSelectionFactory.setCache(
+                    RNVSimpleCache.getCache(acquiredCacheNamespace),
+                    RNVCacheKeyFactory.fromSource(runningSource),
+                    (float) bufferConfig.getCachedTrackBitrateTolerance()
+            );
+        } else {
+            trackSelectionFactory.setCache(null, null, -1);
+        }
+    }
+
+    /**
+     * Install the ABR algorithm and the startup mode requested by the source, thresholds default from the buffer config.
+     * Applies to the track selections made for the next source.
+     */
+    private void updateTrackSelectionAbr(Source runningSource) {
+        BufferConfig bufferConfig = runningSource.getBufferConfig();
+        long lowBufferMs = bufferConfig.getAbrLowBufferMs() > 0
+                ? bufferConfig.getAbrLowBufferMs()
+                : RNVBufferBasedTrackSelection.DEFAULT_LOW_BUFFER_MS;
+        long highBufferMs = bufferConfig.getAbrHighBufferMs();
+        if (highBufferMs <= 0) {
+            long maxBufferMs = bufferConfig.getMaxBufferMs() > 0 ? bufferConfig.getMaxBufferMs() : DefaultLoadControl.DEFAULT_MAX_BUFFER_MS;
+            highBufferMs = (long) (maxBufferMs * RNVBufferBasedTrackSelection.DEFAULT_HIGH_BUFFER_FRACTION);
+        }
+        trackSelectionFactory.setAbr(
+                RNVBufferBasedTrackSelection.Mode.fromString(bufferConfig.getAbrMode()),
+                lowBufferMs,
+                Math.max(highBufferMs, lowBufferMs * 2)
+        );
+        long fastStartDurationMs = 0;
+        if (bufferConfig.isFastStartup()) {
+            fastStartDurationMs = bufferConfig.getFastStartDurationMs() > 0
+                    ? bufferConfig.getFastStartDurationMs()
+                    : DEFAULT_FAST_START_DURATION_MS;
+        }
+        trackSelectionFactory.setFastStart(fastStartDurationMs);
+    }
+
+    private void releaseCacheAcquisition() {
+        if (acquiredCacheNamespace != null) {
+            RNVSimpleCache.release(acquiredCacheNamespace);
+            acquiredCacheNamespace = null;
+        }
+        useCache = false;
+        updateCacheStatsReporting();
+    }
+
+    /**
+     * Report the stats of the acquired cache namespace every cacheStatsUpdateInterval ms, if any.
+     */
+    private void updateCacheStatsReporting() {
+        progressHandler.removeMessages(SHOW_CACHE_STATS);
+        if (acquiredCacheNamespace != null && cacheStatsUpdateInterval > 0) {
+            progressHandler.sendEmptyMessage(SHOW_CACHE_STATS);
+        }
+    }
+
+    /**
+     * Returns a DataSource factory reading through the acquired cache namespace.
+     */
+    private DataSource.Factory buildCacheDataSourceFactory() {
+        return RNVSimpleCache.getCacheFactory(
+                acquiredCacheNamespace,
+                buildHttpDataSourceFactory(true),
+                RNVCacheKeyFactory.fromSource(source),
+                RNVCacheEvictor.Priority.fromString(source.getBufferConfig().getCachePriority())
+        );
+    }
+
+    /**
+     * Returns a DataSource factory serving VOD manifests from the in memory manifest cache.
+     *
+     * @param forceManifest true if the factory only loads manifests, false to detect them from their uri
+     */
+    private DataSource.Factory buildManifestDataSourceFactory(DataSource.Factory upstreamFactory, boolean forceManifest) {
+        long fallbackTtlMs = Math.max(source.getBufferConfig().getManifestCacheTtlMs(), 0);
+        return new ManifestCacheDataSource.Factory(upstreamFactory, forceManifest, fallbackTtlMs, RNVCacheKeyFactory.fromSource(source));
     }
 
     public void getCurrentPosition(Promise promise) {
@@ -707,42 +868,55 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     private void initializePlayerCore(ReactExoplayerView self) {
-        ExoTrackSelection.Factory videoTrackSelectionFactory = new AdaptiveTrackSelection.Factory();
-        self.trackSelector = new DefaultTrackSelector(getContext(), videoTrackSelectionFactory);
-        self.trackSelector.setParameters(trackSelector.buildUponParameters()
-                .setMaxVideoBitrate(maxBitRate == 0 ? Integer.MAX_VALUE : maxBitRate));
-
-        DefaultAllocator allocator = new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
-        RNVLoadControl loadControl = new RNVLoadControl(
-                allocator,
-                source.getBufferConfig()
-        );
-
         long initialBitrate = source.getBufferConfig().getInitialBitrate();
         if (initialBitrate > 0) {
             config.setInitialBitrate(initialBitrate);
             this.bandwidthMeter = config.getBandwidthMeter();
         }
 
-        DefaultRenderersFactory renderersFactory =
-                new DefaultRenderersFactory(getContext())
-                        .setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_OFF)
-                        .setEnableDecoderFallback(true)
-                        .forceEnableMediaCodecAsynchronousQueueing();
+        RNVPlayerPool.PooledPlayer pooledPlayer = ReactNativeVideoManager.Companion.getInstance().getPlayerPool()
+                .acquire(source.getBufferConfig(), viewType, bandwidthMeter);
+        if (pooledPlayer != null) {
+            DebugLog.d(TAG, "reuse pooled player");
+            self.trackSelector = pooledPlayer.getTrackSelector();
+            trackSelectionFactory = pooledPlayer.getTrackSelectionFactory();
+            loadControl = pooledPlayer.getLoadControl();
+            playerMediaSourceFactory = pooledPlayer.getMediaSourceFactory();
+            player = pooledPlayer.getPlayer();
+        } else {
+            trackSelectionFactory = new RNVCacheAwareTrackSelection.Factory();
+            self.trackSelector = new DefaultTrackSelector(getContext(), trackSelectionFactory);
+
+            DefaultAllocator allocator = new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
+            loadControl = new RNVLoadControl(
+                    allocator,
+                    source.getBufferConfig(),
+                    themedReactContext
+            );
 
-        DefaultMediaSourceFactory mediaSourceFactory = new DefaultMediaSourceFactory(mediaDataSourceFactory);
-        if (useCache && !disableCache) {
-            mediaSourceFactory.setDataSourceFactory(RNVSimpleCache.INSTANCE.getCacheFactory(buildHttpDataSourceFactory(true)));
+            DefaultRenderersFactory renderersFactory =
+                    new DefaultRenderersFactory(getContext())
+                            .setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_OFF)
+                            .setEnableDecoderFallback(true)
+                            .forceEnableMediaCodecAsynchronousQueueing();
+
+            playerMediaSourceFactory = new DefaultMediaSourceFactory(mediaDataSourceFactory);
+
+            player = new ExoPlayer.Builder(getContext(), renderersFactory)
+                    .setTrackSelector(self.trackSelector)
+                    .setBandwidthMeter(bandwidthMeter)
+                    .setLoadControl(loadControl)
+                    .setMediaSourceFactory(playerMediaSourceFactory)
+                    .build();
         }
+        // Parameters are reset as a pooled player keeps the ones of its previous view
+        self.trackSelector.setParameters(DefaultTrackSelector.Parameters.getDefaults(getContext()).buildUpon()
+                .setMaxVideoBitrate(maxBitRate == 0 ? Integer.MAX_VALUE : maxBitRate));
+        applyBufferingStrategy();
 
-        mediaSourceFactory.setLocalAdInsertionComponents(unusedAdTagUri -> adsLoader, exoPlayerView.getPlayerView());
+        playerMediaSourceFactory.setDataSourceFactory(useCache && !disableCache ? buildCacheDataSourceFactory() : mediaDataSourceFactory);
+        playerMediaSourceFactory.setLocalAdInsertionComponents(unusedAdTagUri -> adsLoader, exoPlayerView.getPlayerView());
 
-        player = new ExoPlayer.Builder(getContext(), renderersFactory)
-                .setTrackSelector(self.trackSelector)
-                .setBandwidthMeter(bandwidthMeter)
-                .setLoadControl(loadControl)
-                .setMediaSourceFactory(mediaSourceFactory)
-                .build();
         ReactNativeVideoManager.Companion.getInstance().onInstanceCreated(instanceId, player);
         refreshDebugState();
         player.addListener(self);
@@ -798,6 +972,18 @@ public class ReactExoplayerView extends FrameLayout implements
         return null;
     }
 
+    /**
+     * Stored offline license of the source, a license that failed is forgotten so that the retry plays online.
+     * @return null to play with an online license
+     */
+    private byte[] getOfflineKeySetId(UUID uuid, DRMProps drmProps) {
+        if (hasDrmFailed) {
+            RNVOfflineLicenseStore.remove(getContext(), RNVOfflineLicenseStore.getStoreKey(drmProps, source.getUri()), buildHttpDataSourceFactory(false));
+            return null;
+        }
+        return RNVOfflineLicenseStore.getKeySetId(getContext(), uuid, drmProps, source.getUri(), buildHttpDataSourceFactory(false));
+    }
+
     private DrmSessionManager buildDrmSessionManager(UUID uuid, DRMProps drmProps) throws UnsupportedDrmException {
         if (Util.SDK_INT < 18) {
             return null;
@@ -806,12 +992,24 @@ public class ReactExoplayerView extends FrameLayout implements
         try {
             // First check if there's a custom DRM manager registered through the plugin system
             DRMManagerSpec drmManager = ReactNativeVideoManager.Companion.getInstance().getDRMManager();
+            byte[] offlineKeySetId = null;
             if (drmManager == null) {
+                if (drmProps.getOfflineLicense()) {
+                    offlineKeySetId = getOfflineKeySetId(uuid, drmProps);
+                }
                 // If no custom manager is registered, use the default implementation
-                drmManager = new DRMManager(buildHttpDataSourceFactory(false));
+                drmManager = new DRMManager(buildHttpDataSourceFactory(false), offlineKeySetId);
             }
 
-            DrmSessionManager drmSessionManager = drmManager.buildDrmSessionManager(uuid, drmProps);
+            DrmSessionManager drmSessionManager;
+            // A MediaDrm warmed up by VideoManagerModule.prepareDrm skips its opening, retries and custom managers build their own
+            boolean canClaim = !hasDrmFailed && offlineKeySetId == null && drmManager instanceof DRMManager;
+            claimedDrmSessionManager = canClaim ? RNVDrmSessionPool.claim(uuid, drmProps, buildHttpDataSourceFactory(false)) : null;
+            if (claimedDrmSessionManager != null) {
+                drmSessionManager = claimedDrmSessionManager;
+            } else {
+                drmSessionManager = drmManager.buildDrmSessionManager(uuid, drmProps);
+            }
             if (drmSessionManager == null) {
                 eventEmitter.onVideoError.invoke("Failed to build DRM session manager", new Exception("DRM session manager is null"), "3007");
             }
@@ -841,11 +1039,13 @@ public class ReactExoplayerView extends FrameLayout implements
             return;
         }
         // init source to manage ads (external text tracks are now handled in MediaItem)
+        startupMetrics.mark(RNVStartupMetrics.Phase.BuildMediaSourceStart);
         MediaSource videoSource = buildMediaSource(runningSource.getUri(),
                 runningSource.getExtension(),
                 drmSessionManager,
                 runningSource.getCropStartMs(),
                 runningSource.getCropEndMs());
+        startupMetrics.mark(RNVStartupMetrics.Phase.BuildMediaSourceEnd);
         MediaSource mediaSourceWithAds = initializeAds(videoSource, runningSource);
         MediaSource mediaSource = Objects.requireNonNullElse(mediaSourceWithAds, videoSource);
 
@@ -868,6 +1068,9 @@ public class ReactExoplayerView extends FrameLayout implements
         } else {
             player.setMediaSource(mediaSource, true);
         }
+        startupMetrics.mark(RNVStartupMetrics.Phase.Prepare);
+        loadControl.beginStartup(runningSource.getBufferConfig().isFastStartup());
+        trackSelectionFactory.beginStartup();
         player.prepare();
         playerNeedsSource = false;
 
@@ -888,7 +1091,9 @@ public class ReactExoplayerView extends FrameLayout implements
             if (uuid != null) {
                 try {
                     DebugLog.d(TAG, "drm buildDrmSessionManager");
+                    startupMetrics.mark(RNVStartupMetrics.Phase.DrmSessionStart);
                     drmSessionManager = buildDrmSessionManager(uuid, drmProps);
+                    startupMetrics.mark(RNVStartupMetrics.Phase.DrmSessionEnd);
                 } catch (UnsupportedDrmException e) {
                     int errorStringId = Util.SDK_INT < 18 ? R.string.error_drm_not_supported
                             : (e.reason == UnsupportedDrmException.REASON_UNSUPPORTED_SCHEME
@@ -1033,6 +1238,21 @@ public class ReactExoplayerView extends FrameLayout implements
         }
 
 
+        // Media chunks go through the cache when enabled, so that preloaded content is reused
+        DataSource.Factory dataSourceFactory = mediaDataSourceFactory;
+        if (useCache && !disableCache) {
+            dataSourceFactory = buildCacheDataSourceFactory();
+        }
+
+        // Completed downloads are played from the download cache with their downloaded tracks, without network
+        Download download = RNVDownloadManager.getCompletedDownload(uri);
+        if (download != null) {
+            DebugLog.d(TAG, "playing download " + download.request.id);
+            dataSourceFactory = RNVDownloadManager.buildReadOnlyDataSourceFactory(themedReactContext, mediaDataSourceFactory);
+            streamKeys.addAll(download.request.streamKeys);
+            mediaItemBuilder.setCustomCacheKey(download.request.customCacheKey);
+        }
+
         switch (type) {
             case CONTENT_TYPE_SS:
                 if(!BuildConfig.USE_EXOPLAYER_SMOOTH_STREAMING) {
@@ -1041,8 +1261,8 @@ public class ReactExoplayerView extends FrameLayout implements
                 }
 
                 mediaSourceFactory = new SsMediaSource.Factory(
-                        new DefaultSsChunkSource.Factory(mediaDataSourceFactory),
-                        buildDataSourceFactory(false)
+                        new DefaultSsChunkSource.Factory(dataSourceFactory),
+                        download != null ? dataSourceFactory : buildManifestDataSourceFactory(buildDataSourceFactory(false), true)
                 );
                 break;
             case CONTENT_TYPE_DASH:
@@ -1052,8 +1272,8 @@ public class ReactExoplayerView extends FrameLayout implements
                 }
 
                 mediaSourceFactory = new DashMediaSource.Factory(
-                        new DefaultDashChunkSource.Factory(mediaDataSourceFactory),
-                        buildDataSourceFactory(false)
+                        new DefaultDashChunkSource.Factory(dataSourceFactory),
+                        download != null ? dataSourceFactory : buildManifestDataSourceFactory(buildDataSourceFactory(false), true)
                 );
                 break;
             case CONTENT_TYPE_HLS:
@@ -1062,14 +1282,9 @@ public class ReactExoplayerView extends FrameLayout implements
                     throw new IllegalStateException("HLS is not enabled!");
                 }
 
-                DataSource.Factory dataSourceFactory = mediaDataSourceFactory;
-
-                if (useCache && !disableCache) {
-                    dataSourceFactory = RNVSimpleCache.INSTANCE.getCacheFactory(buildHttpDataSourceFactory(true));
-                }
-
+                // Playlists and segments share the same factory, playlists are detected from their uri
                 mediaSourceFactory = new HlsMediaSource.Factory(
-                        dataSourceFactory
+                        download != null ? dataSourceFactory : buildManifestDataSourceFactory(dataSourceFactory, false)
                 ).setAllowChunklessPreparation(source.getTextTracksAllowChunklessPreparation());
                 break;
             case CONTENT_TYPE_OTHER:
@@ -1080,14 +1295,16 @@ public class ReactExoplayerView extends FrameLayout implements
                     } catch (Exception e) {
                         throw new IllegalStateException("cannot open input file:" + uri);
                     }
+                } else if (download != null) {
+                    mediaSourceFactory = new ProgressiveMediaSource.Factory(dataSourceFactory);
                 } else if ("file".equals(uri.getScheme()) ||
-                        !useCache) {
+                        !useCache || disableCache) {
                     mediaSourceFactory = new ProgressiveMediaSource.Factory(
                             mediaDataSourceFactory
                     );
                 } else {
                     mediaSourceFactory = new ProgressiveMediaSource.Factory(
-                            RNVSimpleCache.INSTANCE.getCacheFactory(buildHttpDataSourceFactory(true))
+                            buildCacheDataSourceFactory()
                     );
 
                 }
@@ -1208,17 +1425,26 @@ public class ReactExoplayerView extends FrameLayout implements
             }
 
             updateResumePosition();
-            player.release();
+            boolean recycled = recyclePlayer();
+            if (!recycled) {
+                player.release();
+            }
             player.removeListener(this);
             PictureInPictureUtil.applyAutoEnterEnabled(themedReactContext, pictureInPictureParamsBuilder, false);
             if (pipListenerUnsubscribe != null) {
                 pipListenerUnsubscribe.run();
             }
             trackSelector = null;
+            loadControl.detach();
+            loadControl = null;
+            trackSelectionFactory = null;
+            playerMediaSourceFactory = null;
 
             ReactNativeVideoManager.Companion.getInstance().onInstanceRemoved(instanceId, player);
             player = null;
+            RNVPlaybackSnapshots.remove(getId());
         }
+        releaseCacheAcquisition();
 
         if (adsLoader != null) {
             adsLoader.release();
@@ -1233,6 +1459,50 @@ public class ReactExoplayerView extends FrameLayout implements
             mainHandler.removeCallbacks(mainRunnable);
             mainRunnable = null;
         }
+        getExecutor().cancelAll(this);
+        mainHandler.removeCallbacks(bandwidthWindowRunnable);
+        if (claimedDrmSessionManager != null) {
+            claimedDrmSessionManager.releaseWarmUp();
+            claimedDrmSessionManager = null;
+        }
+    }
+
+    private static RNVExecutor getExecutor() {
+        return ReactNativeVideoManager.Companion.getInstance().getExecutor();
+    }
+
+    /**
+     * Stop the player and detach it from this view, then give it back to the player pool.
+     * @return false if the pool did not take the player, it must be released
+     */
+    private boolean recyclePlayer() {
+        RNVPlayerPool playerPool = ReactNativeVideoManager.Companion.getInstance().getPlayerPool();
+        if (playerPool.getMaxSize() == 0 || trackSelector == null || trackSelectionFactory == null || loadControl == null
+                || playerMediaSourceFactory == null) {
+            return false;
+        }
+        player.stop();
+        player.clearMediaItems();
+        player.setPlayWhenReady(false);
+        player.setRepeatMode(Player.REPEAT_MODE_OFF);
+        if (debugEventLogger != null) {
+            player.removeAnalyticsListener(debugEventLogger);
+            debugEventLogger = null;
+        }
+        exoPlayerView.setPlayer(null);
+        // Ads components reference this view
+        playerMediaSourceFactory.clearLocalAdInsertionComponents();
+        // The cache namespace may be closed while the player is idle
+        trackSelectionFactory.setCache(null, null, -1);
+        return playerPool.recycle(new RNVPlayerPool.PooledPlayer(
+                player,
+                trackSelector,
+                trackSelectionFactory,
+                loadControl,
+                playerMediaSourceFactory,
+                bandwidthMeter,
+                viewType
+        ));
     }
 
     private static class OnAudioFocusChangedListener implements AudioManager.OnAudioFocusChangeListener {
@@ -1387,6 +1657,22 @@ public class ReactExoplayerView extends FrameLayout implements
         // Do nothing.
     }
 
+    @Override
+    public void onRenderedFirstFrame() {
+        startupMetrics.mark(RNVStartupMetrics.Phase.FirstFrame);
+        reportStartupMetrics();
+    }
+
+    /** Send the startup metrics once the first frame is rendered and onVideoLoad is sent */
+    private void reportStartupMetrics() {
+        RNVStartupMetrics.Snapshot metrics = startupMetrics.takeIfComplete();
+        if (metrics == null || viewHasDropped) {
+            return;
+        }
+        eventEmitter.onStartupMetrics.invoke(metrics);
+        ReactNativeVideoManager.Companion.getInstance().onStartupMetrics(instanceId, source, metrics);
+    }
+
     @Override
     public void onEvents(@NonNull Player player, Player.Events events) {
         if (events.contains(Player.EVENT_PLAYBACK_STATE_CHANGED) || events.contains(Player.EVENT_PLAY_WHEN_READY_CHANGED)) {
@@ -1405,12 +1691,14 @@ public class ReactExoplayerView extends FrameLayout implements
                     break;
                 case Player.STATE_BUFFERING:
                     text += "buffering";
+                    startupMetrics.mark(RNVStartupMetrics.Phase.FirstBuffering);
                     onBuffering(true);
                     clearProgressMessageHandler();
                     setKeepScreenOn(preventsDisplaySleepDuringVideoPlayback);
                     break;
                 case Player.STATE_READY:
                     text += "ready";
+                    startupMetrics.mark(RNVStartupMetrics.Phase.Ready);
                     eventEmitter.onReadyForDisplay.invoke();
                     onBuffering(false);
                     clearProgressMessageHandler(); // ensure there is no other message
@@ -1428,7 +1716,7 @@ public class ReactExoplayerView extends FrameLayout implements
                     break;
                 case Player.STATE_ENDED:
                     text += "ended";
-                    updateProgress();
+                    updateProgress(true);
                     eventEmitter.onVideoEnd.invoke();
                     onStopPlayback();
                     setKeepScreenOn(false);
@@ -1439,6 +1727,10 @@ public class ReactExoplayerView extends FrameLayout implements
             }
             DebugLog.d(TAG, text);
         }
+        if (events.containsAny(Player.EVENT_PLAYBACK_STATE_CHANGED, Player.EVENT_IS_PLAYING_CHANGED,
+                Player.EVENT_PLAYBACK_PARAMETERS_CHANGED, Player.EVENT_POSITION_DISCONTINUITY, Player.EVENT_TRACKS_CHANGED)) {
+            publishPlaybackSnapshot();
+        }
     }
 
     private void startProgressHandler() {
@@ -1467,6 +1759,7 @@ public class ReactExoplayerView extends FrameLayout implements
                 setSelectedTextTrack(textTrackType, textTrackValue);
             }
             Format videoFormat = player.getVideoFormat();
+            startupMetrics.setHasVideo(videoFormat != null);
             boolean isRotatedContent = videoFormat != null && (videoFormat.rotationDegrees == 90 || videoFormat.rotationDegrees == 270);
             int width = videoFormat != null ? (isRotatedContent ? videoFormat.height : videoFormat.width) : 0;
             int height = videoFormat != null ? (isRotatedContent ? videoFormat.width : videoFormat.height) : 0;
@@ -1478,26 +1771,20 @@ public class ReactExoplayerView extends FrameLayout implements
             ArrayList<Track> audioTracks = getAudioTrackInfo();
             ArrayList<Track> textTracks  = getTextTrackInfo();
 
+            ArrayList<VideoTrack> videoTracks;
             if (source.getContentStartTime() != -1) {
-                ExecutorService es = Executors.newSingleThreadExecutor();
-                es.execute(() -> {
-                    // To prevent ANRs caused by getVideoTrackInfo we run this on a different thread and notify the player only when we're done
-                    ArrayList<VideoTrack> videoTracks = getVideoTrackInfoFromManifest();
-                    if (videoTracks != null) {
-                        isUsingContentResolution = true;
-                    }
-                    eventEmitter.onVideoLoad.invoke(duration, currentPosition, width, height,
-                            audioTracks, textTracks, videoTracks, trackId );
-                    
-                    updateSubtitleButtonVisibility();
-                });
-                return;
+                videoTracks = getVideoTrackInfoFromManifest();
+                if (videoTracks != null) {
+                    isUsingContentResolution = true;
+                }
+            } else {
+                videoTracks = getVideoTrackInfo();
             }
 
-            ArrayList<VideoTrack> videoTracks = getVideoTrackInfo();
-
             eventEmitter.onVideoLoad.invoke(duration, currentPosition, width, height,
                     audioTracks, textTracks, videoTracks, trackId);
+            startupMetrics.mark(RNVStartupMetrics.Phase.VideoLoad);
+            reportStartupMetrics();
 
             updateSubtitleButtonVisibility();
             refreshControlsStyles();
@@ -1584,71 +1871,53 @@ public class ReactExoplayerView extends FrameLayout implements
         return videoTracks;
     }
 
+    /**
+     * Content video tracks of the player DASH manifest: the tracks of the first period starting after contentStartTime.
+     * Periods already scanned are skipped, so that live manifests only scan their new periods on updates.
+     * @return null if the manifest is not a DASH one or has no such period yet
+     */
     private ArrayList<VideoTrack> getVideoTrackInfoFromManifest() {
-        return this.getVideoTrackInfoFromManifest(0);
-    }
-
-    // We need retry count to in case where minefest request fails from poor network conditions
-    @WorkerThread
-    private ArrayList<VideoTrack> getVideoTrackInfoFromManifest(int retryCount) {
-        ExecutorService es = Executors.newSingleThreadExecutor();
-        final DataSource dataSource = this.mediaDataSourceFactory.createDataSource();
-        final Uri sourceUri = source.getUri();
-        final long startTime = source.getContentStartTime() * 1000 - 100; // s -> ms with 100ms offset
-
-        Future<ArrayList<VideoTrack>> result = es.submit(new Callable() {
-            final DataSource ds = dataSource;
-            final Uri uri = sourceUri;
-            final long startTimeUs = startTime * 1000; // ms -> us
-
-            public ArrayList<VideoTrack> call() {
+        if (manifestVideoTracks != null || player == null) {
+            return manifestVideoTracks;
+        }
+        Object currentManifest = player.getCurrentManifest();
+        if (!(currentManifest instanceof DashManifest)) {
+            return null;
+        }
+        DashManifest manifest = (DashManifest) currentManifest;
+        final long startTimeUs = (source.getContentStartTime() * 1000 - 100) * 1000; // s -> us with 100ms offset
+        int periodCount = manifest.getPeriodCount();
+        for (int i = 0; i < periodCount; i++) {
+            Period period = manifest.getPeriod(i);
+            if (lastScannedPeriodStartMs != C.TIME_UNSET && period.startMs <= lastScannedPeriodStartMs) {
+                continue;
+            }
+            for (int adaptationIndex = 0; adaptationIndex < period.adaptationSets.size(); adaptationIndex++) {
+                AdaptationSet adaptation = period.adaptationSets.get(adaptationIndex);
+                if (adaptation.type != C.TRACK_TYPE_VIDEO) {
+                    continue;
+                }
                 ArrayList<VideoTrack> videoTracks = new ArrayList<>();
-                try  {
-                    DashManifest manifest = DashUtil.loadManifest(this.ds, this.uri);
-                    int periodCount = manifest.getPeriodCount();
-                    for (int i = 0; i < periodCount; i++) {
-                        Period period = manifest.getPeriod(i);
-                        for (int adaptationIndex = 0; adaptationIndex < period.adaptationSets.size(); adaptationIndex++) {
-                            AdaptationSet adaptation = period.adaptationSets.get(adaptationIndex);
-                            if (adaptation.type != C.TRACK_TYPE_VIDEO) {
-                                continue;
-                            }
-                            boolean hasFoundContentPeriod = false;
-                            for (int representationIndex = 0; representationIndex < adaptation.representations.size(); representationIndex++) {
-                                Representation representation = adaptation.representations.get(representationIndex);
-                                Format format = representation.format;
-                                if (isFormatSupported(format)) {
-                                    if (representation.presentationTimeOffsetUs <= startTimeUs) {
-                                        break;
-                                    }
-                                    hasFoundContentPeriod = true;
-                                    VideoTrack videoTrack = exoplayerVideoTrackToGenericVideoTrack(format, representationIndex);
-                                    videoTracks.add(videoTrack);
-                                }
-                            }
-                            if (hasFoundContentPeriod) {
-                                return videoTracks;
-                            }
+                for (int representationIndex = 0; representationIndex < adaptation.representations.size(); representationIndex++) {
+                    Representation representation = adaptation.representations.get(representationIndex);
+                    Format format = representation.format;
+                    if (isFormatSupported(format)) {
+                        if (representation.presentationTimeOffsetUs <= startTimeUs) {
+                            break;
                         }
+                        videoTracks.add(exoplayerVideoTrackToGenericVideoTrack(format, representationIndex));
                     }
-                } catch (Exception e) {
-                    DebugLog.w(TAG, "error in getVideoTrackInfoFromManifest:" + e.getMessage());
                 }
-                return null;
+                if (!videoTracks.isEmpty()) {
+                    manifestVideoTracks = videoTracks;
+                    return videoTracks;
+                }
             }
-        });
-
-        try {
-            ArrayList<VideoTrack> results = result.get(3000, TimeUnit.MILLISECONDS);
-            if (results == null && retryCount < 1) {
-                return this.getVideoTrackInfoFromManifest(++retryCount);
+            // The last period of a live manifest may still be growing, it is scanned again on the next update
+            if (!manifest.dynamic || i < periodCount - 1) {
+                lastScannedPeriodStartMs = period.startMs;
             }
-            es.shutdown();
-            return results;
-        } catch (Exception e) {
-            DebugLog.w(TAG, "error in getVideoTrackInfoFromManifest handling request:" + e.getMessage());
         }
-
         return null;
     }
 
@@ -1797,6 +2066,7 @@ public class ReactExoplayerView extends FrameLayout implements
         if (reason == Player.DISCONTINUITY_REASON_SEEK) {
             isSeeking = true;
             seekPosition = newPosition.positionMs;
+            rescheduleProgress();
             if (isUsingContentResolution) {
                 // We need to update the selected track to make sure that it still matches user selection if track list has changed in this period
                 setSelectedTrack(C.TRACK_TYPE_VIDEO, videoTrackType, videoTrackValue);
@@ -1818,14 +2088,24 @@ public class ReactExoplayerView extends FrameLayout implements
         // so we need to explicitly detect it.
         if (reason == Player.DISCONTINUITY_REASON_AUTO_TRANSITION
                 && player.getRepeatMode() == Player.REPEAT_MODE_ONE) {
-            updateProgress();
+            updateProgress(true);
             eventEmitter.onVideoEnd.invoke();
         }
     }
 
     @Override
     public void onTimelineChanged(@NonNull Timeline timeline, int reason) {
-        // Do nothing.
+        // Live multi-period manifests may publish the content period after the load
+        if (reason != Player.TIMELINE_CHANGE_REASON_SOURCE_UPDATE || loadVideoStarted || manifestVideoTracks != null
+                || source.getContentStartTime() == -1) {
+            return;
+        }
+        ArrayList<VideoTrack> videoTracks = getVideoTrackInfoFromManifest();
+        if (videoTracks != null) {
+            isUsingContentResolution = true;
+            eventEmitter.onVideoTracks.invoke(videoTracks);
+            setSelectedTrack(C.TRACK_TYPE_VIDEO, videoTrackType, videoTrackValue);
+        }
     }
 
     @Override
@@ -1916,6 +2196,7 @@ public class ReactExoplayerView extends FrameLayout implements
 
         if (isPlaying) {
             isSeeking = false;
+            rescheduleProgress();
         }
     }
 
@@ -1939,6 +2220,20 @@ public class ReactExoplayerView extends FrameLayout implements
                     return;
                 }
                 break;
+            case PlaybackException.ERROR_CODE_DRM_LICENSE_EXPIRED:
+            case PlaybackException.ERROR_CODE_DRM_CONTENT_ERROR:
+            case PlaybackException.ERROR_CODE_DRM_DISALLOWED_OPERATION:
+                DRMProps drmProps = source.getDrmProps();
+                if (!hasDrmFailed && drmProps != null && drmProps.getOfflineLicense()) {
+                    // The stored offline license is no longer usable, it is removed and the retry plays online
+                    hasDrmFailed = true;
+                    playerNeedsSource = true;
+                    updateResumePosition();
+                    initializePlayer();
+                    setPlayWhenReady(true);
+                    return;
+                }
+                break;
             default:
                 break;
         }
@@ -2006,11 +2301,48 @@ public class ReactExoplayerView extends FrameLayout implements
         }
     }
 
+    /**
+     * Keep the source until the end of the props transaction, see commitPendingProps.
+     */
+    public void setPendingSrc(Source source) {
+        pendingSource = source;
+    }
+
+    /**
+     * Apply the props collected during a props transaction, once every prop of the transaction is set.
+     * The player is initialized at most once per transaction, and synchronously: other props are already applied.
+     */
+    public void commitPendingProps() {
+        if (pendingSource == null) {
+            return;
+        }
+        Source committedSource = pendingSource;
+        pendingSource = null;
+        applySrc(committedSource, true);
+    }
+
     public void setSrc(Source source) {
+        applySrc(source, false);
+    }
+
+    private void applySrc(Source source, boolean inTransaction) {
         if (source.getUri() != null) {
-            clearResumePosition();
             boolean isSourceEqual = source.isEquals(this.source);
+            if (!isSourceEqual && player != null && !source.getBufferConfig().isPlayerConfigEqual(this.source.getBufferConfig())) {
+                // Buffer durations, heap limits and live config require a new player
+                DebugLog.d(TAG, "bufferConfig changed, rebuilding player");
+                releasePlayer();
+            }
+            clearResumePosition();
             hasDrmFailed = false;
+            if (!isSourceEqual) {
+                progressTracker.reset();
+                mainHandler.removeCallbacks(bandwidthWindowRunnable);
+                bandwidthStats.reset();
+                isUsingContentResolution = false;
+                manifestVideoTracks = null;
+                lastScannedPeriodStartMs = C.TIME_UNSET;
+            }
             this.source = source;
             final DataSource.Factory tmpMediaDataSourceFactory =
                     DataSourceUtil.getDefaultDataSourceFactory(this.themedReactContext, bandwidthMeter,
@@ -2030,8 +2362,9 @@ public class ReactExoplayerView extends FrameLayout implements
             }
 
             if (!isSourceEqual) {
+                startupMetrics.start(source.getUri().toString());
                 playerNeedsSource = true;
-                initializePlayer();
+                initializePlayer(inTransaction);
             }
         } else {
             clearSrc();
@@ -2054,10 +2387,23 @@ public class ReactExoplayerView extends FrameLayout implements
         mProgressUpdateInterval = progressUpdateInterval;
     }
 
+    public void setProgressUpdateThreshold(final float progressUpdateThreshold) {
+        progressTracker.setThresholdMs(Math.round(progressUpdateThreshold));
+    }
+
     public void setReportBandwidth(boolean reportBandwidth) {
         mReportBandwidth = reportBandwidth;
     }
 
+    public void setBandwidthReportInterval(final float bandwidthReportInterval) {
+        this.bandwidthReportInterval = bandwidthReportInterval;
+    }
+
+    public void setCacheStatsUpdateInterval(final float cacheStatsUpdateInterval) {
+        this.cacheStatsUpdateInterval = cacheStatsUpdateInterval;
+        updateCacheStatsReporting();
+    }
+
     public void setResizeModeModifier(@ResizeMode.Mode int resizeMode) {
         if (exoPlayerView != null) {
             exoPlayerView.setResizeMode(resizeMode);
@@ -2605,6 +2951,16 @@ public class ReactExoplayerView extends FrameLayout implements
 
     public void setBufferingStrategy(BufferingStrategy.BufferingStrategyEnum _bufferingStrategy) {
         bufferingStrategy = _bufferingStrategy;
+        if (loadControl != null) {
+            applyBufferingStrategy();
+        }
+    }
+
+    private void applyBufferingStrategy() {
+        loadControl.setBufferingStrategy(bufferingStrategy);
+        if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DependingOnNetwork) {
+            ReactNativeVideoManager.Companion.getInstance().getNetworkMonitor().attach(themedReactContext, bandwidthMeter);
+        }
     }
 
     public boolean getPreventsDisplaySleepDuringVideoPlayback() {
@@ -39,7 +39,10 @@ class ReactExoplayerViewManager(private val config: ReactExoplayerConfig) : View
         private const val PROP_PREVENTS_DISPLAY_SLEEP_DURING_VIDEO_PLAYBACK =
             "preventsDisplaySleepDuringVideoPlayback"
         private const val PROP_PROGRESS_UPDATE_INTERVAL = "progressUpdateInterval"
+        private const val PROP_PROGRESS_UPDATE_THRESHOLD = "progressUpdateThreshold"
         private const val PROP_REPORT_BANDWIDTH = "reportBandwidth"
+        private const val PROP_BANDWIDTH_REPORT_INTERVAL = "bandwidthReportInterval"
+        private const val PROP_CACHE_STATS_UPDATE_INTERVAL = "cacheStatsUpdateInterval"
         private const val PROP_RATE = "rate"
         private const val PROP_MAXIMUM_BIT_RATE = "maxBitRate"
         private const val PROP_PLAY_IN_BACKGROUND = "playInBackground"
@@ -80,10 +83,19 @@ class ReactExoplayerViewManager(private val config: ReactExoplayerConfig) : View
         view.eventEmitter.addEventEmitters(reactContext, view)
     }
 
+    /**
+     * Props are applied as they come, except the source which is applied once per transaction,
+     * after every other prop of the same React commit.
+     */
+    override fun onAfterUpdateTransaction(view: ReactExoplayerView) {
+        super.onAfterUpdateTransaction(view)
+        view.commitPendingProps()
+    }
+
     @ReactProp(name = PROP_SRC)
     fun setSrc(videoView: ReactExoplayerView, src: ReadableMap?) {
         val context = videoView.context.applicationContext
-        videoView.setSrc(Source.parse(src, context))
+        videoView.setPendingSrc(Source.parse(src, context))
     }
 
     @ReactProp(name = PROP_RESIZE_MODE)
@@ -175,11 +187,26 @@ class ReactExoplayerViewManager(private val config: ReactExoplayerConfig) : View
         videoView.setProgressUpdateInterval(progressUpdateInterval)
     }
 
+    @ReactProp(name = PROP_PROGRESS_UPDATE_THRESHOLD, defaultFloat = 0.0f)
+    fun setProgressUpdateThreshold(videoView: ReactExoplayerView, progressUpdateThreshold: Float) {
+        videoView.setProgressUpdateThreshold(progressUpdateThreshold)
+    }
+
     @ReactProp(name = PROP_REPORT_BANDWIDTH, defaultBoolean = false)
     fun setReportBandwidth(videoView: ReactExoplayerView, reportBandwidth: Boolean) {
         videoView.setReportBandwidth(reportBandwidth)
     }
 
+    @ReactProp(name = PROP_BANDWIDTH_REPORT_INTERVAL, defaultFloat = 0.0f)
+    fun setBandwidthReportInterval(videoView: ReactExoplayerView, bandwidthReportInterval: Float) {
+        videoView.setBandwidthReportInterval(bandwidthReportInterval)
+    }
+
+    @ReactProp(name = PROP_CACHE_STATS_UPDATE_INTERVAL, defaultFloat = 0.0f)
+    fun setCacheStatsUpdateInterval(videoView: ReactExoplayerView, cacheStatsUpdateInterval: Float) {
+        videoView.setCacheStatsUpdateInterval(cacheStatsUpdateInterval)
+    }
+
     @ReactProp(name = PROP_RATE)
     fun setRate(videoView: ReactExoplayerView, rate: Float) {
         videoView.setRateModifier(rate)
@@ -2,12 +2,18 @@ package com.brentvatne.react
 
 import androidx.media3.common.MediaItem
 import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.cache.CacheKeyFactory
 import androidx.media3.exoplayer.drm.DrmSessionManager
 import androidx.media3.exoplayer.source.MediaSource
 import com.brentvatne.common.api.Source
 import com.brentvatne.common.toolbox.DebugLog
 import com.brentvatne.exoplayer.DRMManagerSpec
+import com.brentvatne.exoplayer.RNVExecutor
 import com.brentvatne.exoplayer.RNVExoplayerPlugin
+import com.brentvatne.exoplayer.RNVMemoryMonitor
+import com.brentvatne.exoplayer.RNVNetworkMonitor
+import com.brentvatne.exoplayer.RNVPlayerPool
+import com.brentvatne.exoplayer.RNVStartupMetrics
 
 /**
  * ReactNativeVideoManager is a singleton class which allows to manipulate / the global state of the app
@@ -33,6 +39,26 @@ class ReactNativeVideoManager : RNVPlugin {
     private var customDRMManager: DRMManagerSpec? = null
     private var instanceList: ArrayList<Any> = ArrayList()
 
+    /**
+     * Memory pressure level read by the load controls, reported to the <Video/> views
+     */
+    val memoryMonitor = RNVMemoryMonitor()
+
+    /**
+     * Network conditions read by the load controls using the DependingOnNetwork strategy
+     */
+    val networkMonitor = RNVNetworkMonitor()
+
+    /**
+     * Idle players shared by the <Video/> views, disabled until configured from JS
+     */
+    val playerPool = RNVPlayerPool(memoryMonitor)
+
+    /**
+     * Background work of the <Video/> views, shared so that source switches do not spawn threads
+     */
+    val executor = RNVExecutor()
+
     /**
      * register a new ReactExoplayerViewManager in the managed list
      */
@@ -129,6 +155,24 @@ class ReactNativeVideoManager : RNVPlugin {
         return false
     }
 
+    fun overrideCacheKeyFactory(source: Source): CacheKeyFactory? {
+        for (plugin in pluginList) {
+            if (plugin !is RNVExoplayerPlugin) continue
+
+            val factory = plugin.overrideCacheKeyFactory(source)
+            if (factory != null) return factory
+        }
+        return null
+    }
+
+    fun onStartupMetrics(id: String, source: Source, metrics: RNVStartupMetrics.Snapshot) {
+        pluginList.forEach {
+            if (it is RNVExoplayerPlugin) {
+                it.onStartupMetrics(id, source, metrics)
+            }
+        }
+    }
+
     // ----------------------- Custom Plugins Helpers -----------------------
     private fun maybeRegisterExoplayerPlugin(plugin: RNVPlugin) {
         if (plugin !is RNVExoplayerPlugin) {
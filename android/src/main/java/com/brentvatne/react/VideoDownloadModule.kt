@@ -0,0 +1,263 @@
+package com.brentvatne.react
+
+import android.os.Handler
+import android.os.Looper
+import android.text.TextUtils
+import androidx.media3.common.C
+import androidx.media3.common.MediaItem
+import androidx.media3.common.util.Util
+import androidx.media3.exoplayer.DefaultRenderersFactory
+import androidx.media3.exoplayer.offline.Download
+import androidx.media3.exoplayer.offline.DownloadHelper
+import androidx.media3.exoplayer.offline.DownloadManager
+import com.brentvatne.common.api.DownloadOptions
+import com.brentvatne.common.api.Source
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.common.toolbox.ReactBridgeUtils
+import com.brentvatne.exoplayer.RNVDownloadManager
+import com.brentvatne.exoplayer.RNVExecutor
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.Promise
+import com.facebook.react.bridge.ReactApplicationContext
+import com.facebook.react.bridge.ReactContextBaseJavaModule
+import com.facebook.react.bridge.ReactMethod
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.UiThreadUtil
+import com.facebook.react.bridge.WritableMap
+import com.facebook.react.modules.core.DeviceEventManagerModule
+import java.io.IOException
+
+/**
+ * Offline downloads: start, pause, resume and remove downloads, and report their progress.
+ * Download manager is only created on the first call, all its accesses are done on the main thread.
+ * Index reads run on the shared executor.
+ */
+class VideoDownloadModule(reactContext: ReactApplicationContext) :
+    ReactContextBaseJavaModule(reactContext),
+    DownloadManager.Listener {
+    override fun getName(): String = REACT_CLASS
+
+    private val progressHandler = Handler(Looper.getMainLooper())
+    private var isObserving = false
+    private var isReportingProgress = false
+
+    private val progressRunnable = object : Runnable {
+        override fun run() {
+            val downloading = RNVDownloadManager.getDownloadManager(reactApplicationContext).currentDownloads
+                .filter { it.state == Download.STATE_DOWNLOADING }
+            downloading.forEach { emit(EVENT_DOWNLOAD_PROGRESS, downloadToMap(it)) }
+            isReportingProgress = downloading.isNotEmpty()
+            if (isReportingProgress) {
+                progressHandler.postDelayed(this, PROGRESS_UPDATE_INTERVAL_MS)
+            }
+        }
+    }
+
+    @ReactMethod
+    fun download(source: ReadableMap?, options: ReadableMap?, promise: Promise) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        val uri = parsedSource.uri
+        if (uri == null || parsedSource.isLocalAssetFile || parsedSource.isAsset) {
+            promise.reject("INVALID_SOURCE", "Only remote sources can be downloaded")
+            return
+        }
+        val downloadOptions = DownloadOptions.parse(options)
+        val id = downloadOptions.id ?: uri.toString()
+        UiThreadUtil.runOnUiThread {
+            startObserving()
+            val type = Util.inferContentType(
+                if (!TextUtils.isEmpty(parsedSource.extension)) "." + parsedSource.extension else uri.lastPathSegment ?: ""
+            )
+            val mediaItem = MediaItem.Builder()
+                .setUri(uri)
+                .setMimeType(Util.getAdaptiveMimeTypeForContentType(type))
+                .build()
+            val parameters = DownloadHelper.getDefaultTrackSelectorParameters(reactApplicationContext)
+                .buildUpon()
+                .setMaxVideoBitrate(downloadOptions.maxVideoBitrate)
+                .setMaxVideoSize(Int.MAX_VALUE, downloadOptions.maxVideoHeight)
+                .build()
+            val helper = DownloadHelper.forMediaItem(
+                mediaItem,
+                parameters,
+                DefaultRenderersFactory(reactApplicationContext),
+                RNVDownloadManager.buildUpstreamDataSourceFactory(reactApplicationContext, parsedSource.headers)
+            )
+            helper.prepare(object : DownloadHelper.Callback {
+                override fun onPrepared(helper: DownloadHelper) {
+                    try {
+                        // Progressive media has no track to select
+                        if (helper.periodCount > 0) {
+                            if (downloadOptions.audioLanguages.isNotEmpty()) {
+                                helper.addAudioLanguagesToSelection(*downloadOptions.audioLanguages.toTypedArray())
+                            }
+                            if (downloadOptions.textLanguages.isNotEmpty()) {
+                                helper.addTextLanguagesToSelection(true, *downloadOptions.textLanguages.toTypedArray())
+                            }
+                        }
+                        val request = helper.getDownloadRequest(id, RNVDownloadManager.encodeHeaders(parsedSource.headers))
+                        RNVDownloadManager.addDownload(reactApplicationContext, request)
+                        promise.resolve(id)
+                    } catch (e: Exception) {
+                        promise.reject("DOWNLOAD_FAILED", e.message, e)
+                    } finally {
+                        helper.release()
+                    }
+                }
+
+                override fun onPrepareError(helper: DownloadHelper, e: IOException) {
+                    DebugLog.w(TAG, "failed to prepare download $id: ${e.message}")
+                    helper.release()
+                    promise.reject("DOWNLOAD_PREPARE_FAILED", e.message, e)
+                }
+            })
+        }
+    }
+
+    @ReactMethod
+    fun pauseDownload(id: String, promise: Promise) {
+        UiThreadUtil.runOnUiThread {
+            RNVDownloadManager.setPaused(reactApplicationContext, id, true)
+            promise.resolve(null)
+        }
+    }
+
+    @ReactMethod
+    fun resumeDownload(id: String, promise: Promise) {
+        UiThreadUtil.runOnUiThread {
+            RNVDownloadManager.setPaused(reactApplicationContext, id, false)
+            promise.resolve(null)
+        }
+    }
+
+    @ReactMethod
+    fun removeDownload(id: String, promise: Promise) {
+        UiThreadUtil.runOnUiThread {
+            RNVDownloadManager.removeDownload(reactApplicationContext, id)
+            promise.resolve(null)
+        }
+    }
+
+    @ReactMethod
+    fun getDownload(id: String, promise: Promise) {
+        ReactNativeVideoManager.getInstance().executor.execute(this, RNVExecutor.Priority.DownloadIndex) {
+            try {
+                val download = RNVDownloadManager.getDownload(reactApplicationContext, id)
+                promise.resolve(download?.let { downloadToMap(it) })
+            } catch (e: IOException) {
+                promise.reject("DOWNLOAD_INDEX_FAILED", e.message, e)
+            }
+        }
+    }
+
+    @ReactMethod
+    fun getDownloads(promise: Promise) {
+        ReactNativeVideoManager.getInstance().executor.execute(this, RNVExecutor.Priority.DownloadIndex) {
+            try {
+                val downloads = Arguments.createArray()
+                RNVDownloadManager.getDownloads(reactApplicationContext).forEach { downloads.pushMap(downloadToMap(it)) }
+                promise.resolve(downloads)
+            } catch (e: IOException) {
+                promise.reject("DOWNLOAD_INDEX_FAILED", e.message, e)
+            }
+        }
+    }
+
+    @ReactMethod
+    fun configureDownloads(config: ReadableMap?) {
+        UiThreadUtil.runOnUiThread {
+            RNVDownloadManager.maxParallelDownloads =
+                ReactBridgeUtils.safeGetInt(config, "maxParallelDownloads", RNVDownloadManager.maxParallelDownloads)
+        }
+    }
+
+    @ReactMethod
+    @Suppress("UNUSED_PARAMETER") // NativeEventEmitter compatibility
+    fun addListener(eventName: String) {
+        UiThreadUtil.runOnUiThread { startObserving() }
+    }
+
+    @ReactMethod
+    @Suppress("UNUSED_PARAMETER") // NativeEventEmitter compatibility
+    fun removeListeners(count: Int) {
+        // Do nothing, events are only sent while the app has a react instance
+    }
+
+    override fun invalidate() {
+        UiThreadUtil.runOnUiThread {
+            progressHandler.removeCallbacks(progressRunnable)
+            isReportingProgress = false
+            if (isObserving) {
+                RNVDownloadManager.getDownloadManager(reactApplicationContext).removeListener(this)
+                isObserving = false
+            }
+        }
+        super.invalidate()
+    }
+
+    override fun onDownloadChanged(downloadManager: DownloadManager, download: Download, finalException: Exception?) {
+        emit(EVENT_DOWNLOAD_STATE_CHANGED, downloadToMap(download))
+        if (download.state == Download.STATE_DOWNLOADING && !isReportingProgress) {
+            isReportingProgress = true
+            progressHandler.post(progressRunnable)
+        }
+    }
+
+    override fun onDownloadRemoved(downloadManager: DownloadManager, download: Download) {
+        emit(EVENT_DOWNLOAD_STATE_CHANGED, downloadToMap(download).apply { putString("state", STATE_REMOVED) })
+    }
+
+    private fun startObserving() {
+        if (isObserving) return
+        isObserving = true
+        RNVDownloadManager.getDownloadManager(reactApplicationContext).addListener(this)
+        progressHandler.post(progressRunnable)
+    }
+
+    private fun emit(eventName: String, params: WritableMap) {
+        if (!reactApplicationContext.hasActiveReactInstance()) return
+        reactApplicationContext
+            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
+            .emit(eventName, params)
+    }
+
+    private fun downloadToMap(download: Download): WritableMap =
+        Arguments.createMap().apply {
+            putString("id", download.request.id)
+            putString("uri", download.request.uri.toString())
+            putString("state", stateToString(download.state))
+            putDouble("bytesDownloaded", download.bytesDownloaded.toDouble())
+            if (download.contentLength != C.LENGTH_UNSET.toLong()) {
+                putDouble("contentLength", download.contentLength.toDouble())
+            }
+            if (download.percentDownloaded != C.PERCENTAGE_UNSET.toFloat()) {
+                putDouble("percentDownloaded", download.percentDownloaded.toDouble())
+            }
+            putBoolean("paused", download.stopReason == RNVDownloadManager.STOP_REASON_PAUSED)
+            if (download.state == Download.STATE_FAILED) {
+                putInt("failureReason", download.failureReason)
+            }
+        }
+
+    private fun stateToString(state: Int): String =
+        when (state) {
+            Download.STATE_QUEUED -> "queued"
+            Download.STATE_STOPPED -> "stopped"
+            Download.STATE_DOWNLOADING -> "downloading"
+            Download.STATE_COMPLETED -> "completed"
+            Download.STATE_FAILED -> "failed"
+            Download.STATE_REMOVING -> "removing"
+            Download.STATE_RESTARTING -> "restarting"
+            else -> "unknown"
+        }
+
+    companion object {
+        private const val TAG = "VideoDownloadModule"
+        private const val REACT_CLASS = "VideoDownloadManager"
+
+        private const val EVENT_DOWNLOAD_PROGRESS = "onDownloadProgress"
+        private const val EVENT_DOWNLOAD_STATE_CHANGED = "onDownloadStateChanged"
+        private const val STATE_REMOVED = "removed"
+        private const val PROGRESS_UPDATE_INTERVAL_MS = 1000L
+    }
+}
@@ -1,13 +1,34 @@
 package com.brentvatne.react
 
+import android.os.SystemClock
+import android.text.TextUtils
+import androidx.media3.common.C
+import androidx.media3.common.util.Util
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.cache.CacheKeyFactory
+import com.brentvatne.common.api.PreloadOptions
 import com.brentvatne.common.api.Source
+import com.brentvatne.common.react.VideoEventEmitter
+import com.brentvatne.common.toolbox.ReactBridgeUtils
+import com.brentvatne.exoplayer.DataSourceUtil
+import com.brentvatne.exoplayer.RNVCacheEvictor
+import com.brentvatne.exoplayer.RNVCacheKeyFactory
+import com.brentvatne.exoplayer.RNVDrmSessionPool
+import com.brentvatne.exoplayer.RNVExecutor
+import com.brentvatne.exoplayer.RNVManifestCache
+import com.brentvatne.exoplayer.RNVOfflineLicenseStore
+import com.brentvatne.exoplayer.RNVPlaybackSnapshots
+import com.brentvatne.exoplayer.RNVPreloader
+import com.brentvatne.exoplayer.RNVSimpleCache
 import com.brentvatne.exoplayer.ReactExoplayerView
+import com.facebook.react.bridge.Arguments
 import com.facebook.react.bridge.Promise
 import com.facebook.react.bridge.ReactApplicationContext
 import com.facebook.react.bridge.ReactContextBaseJavaModule
 import com.facebook.react.bridge.ReactMethod
 import com.facebook.react.bridge.ReadableMap
 import com.facebook.react.bridge.UiThreadUtil
+import com.facebook.react.bridge.WritableMap
 import com.facebook.react.uimanager.UIManagerHelper
 import com.facebook.react.uimanager.common.UIManagerType
 import kotlin.math.roundToInt
@@ -88,11 +109,311 @@ class VideoManagerModule(reactContext: ReactApplicationContext?) : ReactContextB
 
     @ReactMethod
     fun getCurrentPosition(reactTag: Int, promise: Promise) {
+        // Published by the view, read without resolving it on the UI thread
+        val snapshot = RNVPlaybackSnapshots.get(reactTag)
+        if (snapshot != null) {
+            promise.resolve(snapshot.getCurrentPosition() / 1000.0f)
+            return
+        }
         performOnPlayerView(reactTag) {
             it?.getCurrentPosition(promise)
         }
     }
 
+    /** Latest playback state of the view, null if it has no player */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    fun getPlaybackSnapshot(reactTag: Int): WritableMap? {
+        val snapshot = RNVPlaybackSnapshots.get(reactTag) ?: return null
+        val result = Arguments.createMap()
+        result.putDouble("currentTime", snapshot.getCurrentPosition() / 1000.0)
+        result.putDouble("playableDuration", snapshot.bufferedPosition / 1000.0)
+        if (snapshot.duration != C.TIME_UNSET) {
+            result.putDouble("duration", snapshot.duration / 1000.0)
+        }
+        result.putString("state", snapshot.state)
+        result.putBoolean("isPlaying", snapshot.isPlaying)
+        result.putDouble("rate", snapshot.rate.toDouble())
+        if (snapshot.bitrate > 0) {
+            result.putInt("bitrate", snapshot.bitrate)
+        }
+        result.putDouble("publishedAgoMs", (SystemClock.elapsedRealtime() - snapshot.publishedAtMs).toDouble())
+        return result
+    }
+
+    @ReactMethod
+    fun getBandwidthStats(reactTag: Int, promise: Promise) {
+        performOnPlayerView(reactTag) {
+            if (it == null) {
+                promise.reject("PLAYER_NOT_AVAILABLE", "Player view not found.")
+                return@performOnPlayerView
+            }
+            val summary = it.bandwidthStats
+            if (summary == null) {
+                promise.resolve(null)
+                return@performOnPlayerView
+            }
+            val result = Arguments.createMap()
+            result.putDouble("bitrate", summary.bitrateEstimate.toDouble())
+            VideoEventEmitter.putBandwidthSummary(result, summary)
+            promise.resolve(result)
+        }
+    }
+
+    @ReactMethod
+    fun getCacheState(promise: Promise) {
+        val states = Arguments.createArray()
+        RNVSimpleCache.getState().forEach {
+            val state = Arguments.createMap()
+            state.putString("namespace", it.namespace)
+            state.putInt("refCount", it.refCount)
+            state.putDouble("maxBytes", it.maxBytes.toDouble())
+            state.putDouble("usedBytes", it.usedBytes.toDouble())
+            state.putBoolean("releasePending", it.releasePending)
+            state.putString("folder", it.folder)
+            val classBytes = Arguments.createMap()
+            it.classBytes.forEach { (priority, bytes) -> classBytes.putDouble(priority.value, bytes.toDouble()) }
+            state.putMap("classBytes", classBytes)
+            states.pushMap(state)
+        }
+        promise.resolve(states)
+    }
+
+    @ReactMethod
+    fun getCacheStats(promise: Promise) {
+        val namespaces = Arguments.createArray()
+        RNVSimpleCache.getStats().forEach {
+            val stats = Arguments.createMap()
+            stats.putString("namespace", it.namespace)
+            stats.putDouble("cacheReadBytes", it.cacheReadBytes.toDouble())
+            stats.putDouble("upstreamReadBytes", it.upstreamReadBytes.toDouble())
+            stats.putDouble("hitRatio", it.hitRatio)
+            stats.putDouble("ignoredOnError", it.ignoredOnError.toDouble())
+            stats.putDouble("ignoredUnsetLength", it.ignoredUnsetLength.toDouble())
+            stats.putDouble("evictions", it.evictions.toDouble())
+            stats.putDouble("evictedBytes", it.evictedBytes.toDouble())
+            stats.putDouble("usedBytes", it.usedBytes.toDouble())
+            stats.putDouble("maxBytes", it.maxBytes.toDouble())
+            namespaces.pushMap(stats)
+        }
+        val manifestStats = RNVManifestCache.getStats()
+        val manifestCache = Arguments.createMap()
+        manifestCache.putDouble("hits", manifestStats.hits.toDouble())
+        manifestCache.putDouble("misses", manifestStats.misses.toDouble())
+        manifestCache.putInt("size", manifestStats.size)
+        manifestCache.putDouble("bytes", manifestStats.bytes.toDouble())
+        val factoryStats = DataSourceUtil.getFactoryStats()
+        val dataSourceFactories = Arguments.createMap()
+        dataSourceFactories.putDouble("builds", factoryStats.builds.toDouble())
+        dataSourceFactories.putDouble("reuses", factoryStats.reuses.toDouble())
+        dataSourceFactories.putInt("size", factoryStats.size)
+        val result = Arguments.createMap()
+        result.putArray("namespaces", namespaces)
+        result.putMap("manifestCache", manifestCache)
+        result.putMap("dataSourceFactories", dataSourceFactories)
+        promise.resolve(result)
+    }
+
+    @ReactMethod
+    fun resizeCache(namespace: String?, cacheSizeMB: Int, promise: Promise) {
+        promise.resolve(RNVSimpleCache.resize(namespace, cacheSizeMB))
+    }
+
+    @ReactMethod
+    fun releaseCache(namespace: String?, promise: Promise) {
+        promise.resolve(RNVSimpleCache.releaseCache(namespace))
+    }
+
+    /**
+     * Pin the beginning of a progressive source in its cache namespace
+     * Adaptive sources are rejected: their key is the manifest one, their segments are pinned by a preload with pin set
+     * @param bytes pinned length, 0 or less for the whole content
+     */
+    @ReactMethod
+    fun pinCache(source: ReadableMap?, bytes: Double, promise: Promise) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        val key = getCacheKey(parsedSource)
+        if (key == null) {
+            promise.reject("INVALID_SOURCE", "Pinned source has no uri")
+            return
+        }
+        if (isAdaptive(parsedSource)) {
+            promise.reject("UNSUPPORTED_SOURCE", "HLS, DASH and SmoothStreaming sources are pinned with preload and pin set")
+            return
+        }
+        val pinnedBytes = if (bytes > 0) bytes.toLong() else C.LENGTH_UNSET.toLong()
+        promise.resolve(RNVSimpleCache.pin(parsedSource.bufferConfig.cacheNamespace, key, pinnedBytes))
+    }
+
+    @ReactMethod
+    fun unpinCache(source: ReadableMap?, promise: Promise) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        val key = getCacheKey(parsedSource)
+        if (key == null) {
+            promise.reject("INVALID_SOURCE", "Pinned source has no uri")
+            return
+        }
+        promise.resolve(RNVSimpleCache.unpin(parsedSource.bufferConfig.cacheNamespace, key))
+    }
+
+    /**
+     * Set the byte budget of each eviction class of a namespace, in MB
+     * Missing classes, or classes set to 0 or less, have no budget of their own
+     */
+    @ReactMethod
+    fun configureCacheEviction(namespace: String?, config: ReadableMap?, promise: Promise) {
+        var configured = true
+        RNVCacheEvictor.Priority.values().forEach {
+            val budgetMB = ReactBridgeUtils.safeGetInt(config, it.value, 0)
+            val budget = if (budgetMB > 0) budgetMB.toLong() * 1024 * 1024 else C.LENGTH_UNSET.toLong()
+            configured = RNVSimpleCache.setClassBudget(namespace, it, budget) && configured
+        }
+        promise.resolve(configured)
+    }
+
+    private fun isAdaptive(source: Source): Boolean {
+        val uri = source.uri ?: return false
+        val type = Util.inferContentType(
+            if (!TextUtils.isEmpty(source.extension)) "." + source.extension else uri.lastPathSegment ?: ""
+        )
+        return type == C.CONTENT_TYPE_HLS || type == C.CONTENT_TYPE_DASH || type == C.CONTENT_TYPE_SS
+    }
+
+    /** Cache key of the source content, as built by the player */
+    private fun getCacheKey(source: Source): String? {
+        val uri = source.uri ?: return null
+        val keyFactory = RNVCacheKeyFactory.fromSource(source) ?: CacheKeyFactory.DEFAULT
+        return keyFactory.buildCacheKey(DataSpec(uri))
+    }
+
+    /**
+     * Provision the device and open the DRM framework for the source DRM props, ahead of its playback
+     * The prepared DRM framework is claimed by the first player using the same DRM type
+     */
+    @ReactMethod
+    fun prepareDrm(source: ReadableMap?, promise: Promise) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        val drmProps = parsedSource.drmProps
+        if (drmProps == null) {
+            promise.reject("INVALID_DRM", "Source has no uri, or no drm type and license server")
+            return
+        }
+        val httpDataSourceFactory = DataSourceUtil.getDefaultHttpDataSourceFactory(reactApplicationContext, null, parsedSource.headers)
+        ReactNativeVideoManager.getInstance().executor.execute(RNVDrmSessionPool, RNVExecutor.Priority.DrmSetup) {
+            promise.resolve(RNVDrmSessionPool.prepare(drmProps, httpDataSourceFactory))
+        }
+    }
+
+    /** Forget the stored offline license of the source, its next play requests a new license */
+    @ReactMethod
+    fun removeOfflineLicense(source: ReadableMap?, promise: Promise) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        val drmProps = parsedSource.drmProps
+        val uri = parsedSource.uri
+        if (drmProps == null || uri == null) {
+            promise.reject("INVALID_DRM", "Source has no uri, or no drm type and license server")
+            return
+        }
+        val httpDataSourceFactory = DataSourceUtil.getDefaultHttpDataSourceFactory(reactApplicationContext, null, parsedSource.headers)
+        RNVOfflineLicenseStore.remove(reactApplicationContext, RNVOfflineLicenseStore.getStoreKey(drmProps, uri), httpDataSourceFactory)
+        promise.resolve(null)
+    }
+
+    @ReactMethod
+    fun clearOfflineLicenses(promise: Promise) {
+        val httpDataSourceFactory = DataSourceUtil.getDefaultHttpDataSourceFactory(reactApplicationContext, null, null)
+        RNVOfflineLicenseStore.clear(reactApplicationContext, httpDataSourceFactory)
+        promise.resolve(null)
+    }
+
+    @ReactMethod
+    fun preload(source: ReadableMap?, options: ReadableMap?, promise: Promise) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        if (parsedSource.uri == null) {
+            promise.reject("INVALID_SOURCE", "Preload source has no uri")
+            return
+        }
+        promise.resolve(RNVPreloader.preload(reactApplicationContext, parsedSource, PreloadOptions.parse(options)))
+    }
+
+    @ReactMethod
+    fun getPreloadStatus(id: String, promise: Promise) {
+        val state = RNVPreloader.getStatus(id)
+        if (state == null) {
+            promise.reject("PRELOAD_NOT_FOUND", "Unknown preload $id")
+            return
+        }
+        val status = Arguments.createMap()
+        status.putString("id", state.id)
+        status.putString("status", state.status.value)
+        status.putDouble("bytesCached", state.bytesCached.toDouble())
+        status.putDouble("bytesTarget", state.bytesTarget.toDouble())
+        status.putString("error", state.error)
+        promise.resolve(status)
+    }
+
+    @ReactMethod
+    fun cancelPreload(id: String, promise: Promise) {
+        promise.resolve(RNVPreloader.cancel(id))
+    }
+
+    @ReactMethod
+    fun configurePlayerPool(config: ReadableMap?) {
+        UiThreadUtil.runOnUiThread {
+            val playerPool = ReactNativeVideoManager.getInstance().playerPool
+            playerPool.trimOnMemoryPressure = ReactBridgeUtils.safeGetBool(config, "trimOnMemoryPressure", playerPool.trimOnMemoryPressure)
+            playerPool.maxSize = ReactBridgeUtils.safeGetInt(config, "maxSize", playerPool.maxSize)
+        }
+    }
+
+    @ReactMethod
+    fun getPlayerPoolStats(promise: Promise) {
+        UiThreadUtil.runOnUiThread {
+            val stats = ReactNativeVideoManager.getInstance().playerPool.getStats()
+            val result = Arguments.createMap()
+            result.putInt("size", stats.size)
+            result.putInt("maxSize", stats.maxSize)
+            result.putDouble("hits", stats.hits.toDouble())
+            result.putDouble("misses", stats.misses.toDouble())
+            result.putDouble("evictions", stats.evictions.toDouble())
+            promise.resolve(result)
+        }
+    }
+
+    @ReactMethod
+    fun getExecutorStats(promise: Promise) {
+        val stats = ReactNativeVideoManager.getInstance().executor.getStats()
+        val result = Arguments.createMap()
+        result.putInt("queued", stats.queued)
+        result.putInt("running", stats.running)
+        result.putInt("maxThreads", stats.maxThreads)
+        result.putDouble("completed", stats.completed.toDouble())
+        result.putDouble("cancelled", stats.cancelled.toDouble())
+        result.putDouble("rejected", stats.rejected.toDouble())
+        result.putDouble("averageWaitMs", stats.averageWaitMs)
+        result.putDouble("maxWaitMs", stats.maxWaitMs.toDouble())
+        result.putDouble("averageRunMs", stats.averageRunMs)
+        promise.resolve(result)
+    }
+
+    @ReactMethod
+    fun getEventStats(promise: Promise) {
+        val stats = VideoEventEmitter.getStats()
+        val result = Arguments.createMap()
+        result.putDouble("dispatched", stats.dispatched.toDouble())
+        result.putDouble("coalesced", stats.coalesced.toDouble())
+        result.putDouble("dropped", stats.dropped.toDouble())
+        result.putInt("budgetPerSecond", VideoEventEmitter.DISPATCH_BUDGET_PER_SECOND)
+        promise.resolve(result)
+    }
+
+    override fun invalidate() {
+        super.invalidate()
+        // Idle players would outlive the React instance (reload, host destruction) with their playback threads
+        UiThreadUtil.runOnUiThread {
+            ReactNativeVideoManager.getInstance().playerPool.trim(0)
+        }
+    }
+
     companion object {
         private const val REACT_CLASS = "VideoManager"
     }
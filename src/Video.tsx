@@ -24,6 +24,7 @@ import type {
   OnAudioTracksData,
   OnBandwidthUpdateData,
   OnBufferData,
+  OnCacheStatsData,
   OnControlsVisibilityChange,
   OnExternalPlaybackChangeData,
   OnGetLicenseData,
@@ -32,6 +33,8 @@ import type {
   OnPlaybackStateChangedData,
   OnProgressData,
   OnSeekData,
+  OnStartupMetricsData,
+  OnMemoryPressureData,
   OnTextTrackDataChangedData,
   OnTimedMetadataData,
   OnVideoAspectRatioData,
@@ -47,12 +50,14 @@ import {
 import NativeVideoManager from './specs/NativeVideoManager';
 import {ViewType, CmcdMode, VideoRef} from './types';
 import type {
+  OnBandwidthUpdateData,
   OnLoadData,
   OnTextTracksData,
   OnReceiveAdEventData,
   ReactVideoProps,
   CmcdData,
   ReactVideoSource,
+  VideoPlaybackSnapshot,
 } from './types';
 
 const Video = forwardRef<VideoRef, ReactVideoProps>(
@@ -84,6 +89,9 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       onEnd,
       onBuffer,
       onBandwidthUpdate,
+      onCacheStats,
+      onStartupMetrics,
+      onMemoryPressure,
       onControlsVisibilityChange,
       onExternalPlaybackChange,
       onFullscreenPlayerWillPresent,
@@ -190,6 +198,7 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
               base64Certificate: selectedDrm.base64Certificate,
               useExternalGetLicense: !!selectedDrm.getLicense,
               multiDrm: selectedDrm.multiDrm,
+              offlineLicense: selectedDrm.offlineLicense,
               localSourceEncryptionKeyScheme:
                 selectedDrm.localSourceEncryptionKeyScheme ||
                 localSourceEncryptionKeyScheme,
@@ -462,6 +471,30 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       return NativeVideoManager.getCurrentPosition(getReactTag(nativeRef));
     }, []);
 
+    const getBandwidthStats = useCallback(() => {
+      if (Platform.OS !== 'android') {
+        return Promise.reject(
+          new Error(
+            `The method or property Video.getBandwidthStats is not available on ${Platform.OS}.`,
+          ),
+        );
+      }
+      return NativeVideoManager.getBandwidthStats(
+        getReactTag(nativeRef),
+      ) as Promise<OnBandwidthUpdateData | null>;
+    }, []);
+
+    const getPlaybackSnapshot = useCallback(() => {
+      if (Platform.OS !== 'android') {
+        throw new Error(
+          `The method or property Video.getPlaybackSnapshot is not available on ${Platform.OS}.`,
+        );
+      }
+      return NativeVideoManager.getPlaybackSnapshot(
+        getReactTag(nativeRef),
+      ) as VideoPlaybackSnapshot | null;
+    }, []);
+
     const restoreUserInterfaceForPictureInPictureStopCompleted = useCallback(
       (restored: boolean) => {
         setRestoreUserInterfaceForPIPStopCompletionHandler(restored);
@@ -614,6 +647,27 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       [onBandwidthUpdate],
     );
 
+    const _onCacheStats = useCallback(
+      (e: NativeSyntheticEvent<OnCacheStatsData>) => {
+        onCacheStats?.(e.nativeEvent);
+      },
+      [onCacheStats],
+    );
+
+    const _onStartupMetrics = useCallback(
+      (e: NativeSyntheticEvent<OnStartupMetricsData>) => {
+        onStartupMetrics?.(e.nativeEvent);
+      },
+      [onStartupMetrics],
+    );
+
+    const _onMemoryPressure = useCallback(
+      (e: NativeSyntheticEvent<OnMemoryPressureData>) => {
+        onMemoryPressure?.(e.nativeEvent);
+      },
+      [onMemoryPressure],
+    );
+
     const _onReceiveAdEvent = useCallback(
       (e: NativeSyntheticEvent<OnReceiveAdEventData>) => {
         onReceiveAdEvent?.(e.nativeEvent);
@@ -695,6 +749,8 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
         restoreUserInterfaceForPictureInPictureStopCompleted,
         setVolume,
         getCurrentPosition,
+        getBandwidthStats,
+        getPlaybackSnapshot,
         setFullScreen,
         enterPictureInPicture,
         exitPictureInPicture,
@@ -710,6 +766,8 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
         restoreUserInterfaceForPictureInPictureStopCompleted,
         setVolume,
         getCurrentPosition,
+        getBandwidthStats,
+        getPlaybackSnapshot,
         setFullScreen,
         enterPictureInPicture,
         exitPictureInPicture,
@@ -868,6 +926,9 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
             onTextTrackDataChanged ? _onTextTrackDataChanged : undefined
           }
           onVideoTracks={onVideoTracks ? _onVideoTracks : undefined}
+          onCacheStats={onCacheStats ? _onCacheStats : undefined}
+          onStartupMetrics={onStartupMetrics ? _onStartupMetrics : undefined}
+          onMemoryPressure={onMemoryPressure ? _onMemoryPressure : undefined}
           onVideoFullscreenPlayerDidDismiss={onFullscreenPlayerDidDismiss}
           onVideoFullscreenPlayerDidPresent={onFullscreenPlayerDidPresent}
           onVideoFullscreenPlayerWillDismiss={onFullscreenPlayerWillDismiss}
@@ -0,0 +1,94 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {
+  ReactVideoSourceProperties,
+  VideoCacheEvictionConfig,
+  VideoPreloadOptions,
+} from './types';
+import {generateHeaderForNative} from './utils';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+const toNativeSource = (source: ReactVideoSourceProperties) => ({
+  uri: source.uri,
+  type: source.type || '',
+  requestHeaders: generateHeaderForNative(source.headers),
+  bufferConfig: source.bufferConfig,
+});
+
+export const VideoCache = {
+  async getState() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'getState'));
+    }
+    return NativeVideoManager.getCacheState();
+  },
+  async getStats() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'getStats'));
+    }
+    return NativeVideoManager.getCacheStats();
+  },
+  async resize(cacheSizeMB: number, namespace?: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'resize'));
+    }
+    return NativeVideoManager.resizeCache(namespace ?? null, cacheSizeMB);
+  },
+  async release(namespace?: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'release'));
+    }
+    return NativeVideoManager.releaseCache(namespace ?? null);
+  },
+  async pin(source: ReactVideoSourceProperties, bytes?: number) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'pin'));
+    }
+    if (typeof source.uri !== 'string') {
+      throw new Error('Only network sources can be pinned');
+    }
+    return NativeVideoManager.pinCache(toNativeSource(source), bytes ?? 0);
+  },
+  async unpin(source: ReactVideoSourceProperties) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'unpin'));
+    }
+    if (typeof source.uri !== 'string') {
+      throw new Error('Only network sources can be pinned');
+    }
+    return NativeVideoManager.unpinCache(toNativeSource(source));
+  },
+  async configureEviction(config: VideoCacheEvictionConfig, namespace?: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'configureEviction'));
+    }
+    return NativeVideoManager.configureCacheEviction(namespace ?? null, config);
+  },
+  async preload(
+    source: ReactVideoSourceProperties,
+    options?: VideoPreloadOptions,
+  ) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'preload'));
+    }
+    if (typeof source.uri !== 'string') {
+      throw new Error('Only network sources can be preloaded');
+    }
+    return NativeVideoManager.preload(toNativeSource(source), options);
+  },
+  async getPreloadStatus(id: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'getPreloadStatus'));
+    }
+    return NativeVideoManager.getPreloadStatus(id);
+  },
+  async cancelPreload(id: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'cancelPreload'));
+    }
+    return NativeVideoManager.cancelPreload(id);
+  },
+};
@@ -0,0 +1,90 @@
+import {NativeEventEmitter, Platform} from 'react-native';
+import type {EmitterSubscription} from 'react-native';
+
+import NativeVideoDownloadManager from './specs/NativeVideoDownloadManager';
+import type {
+  ReactVideoSourceProperties,
+  VideoDownload,
+  VideoDownloadOptions,
+  VideoDownloadsConfig,
+} from './types';
+import {generateHeaderForNative} from './utils';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+let eventEmitter: NativeEventEmitter | undefined;
+
+const getEventEmitter = () => {
+  if (!eventEmitter) {
+    eventEmitter = new NativeEventEmitter(NativeVideoDownloadManager);
+  }
+  return eventEmitter;
+};
+
+export const VideoDownloads = {
+  async download(
+    source: ReactVideoSourceProperties,
+    options?: VideoDownloadOptions,
+  ) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloads', 'download'));
+    }
+    if (typeof source.uri !== 'string') {
+      throw new Error('Only network sources can be downloaded');
+    }
+    return NativeVideoDownloadManager.download(
+      {
+        uri: source.uri,
+        type: source.type || '',
+        requestHeaders: generateHeaderForNative(source.headers),
+      },
+      options,
+    );
+  },
+  async pause(id: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloads', 'pause'));
+    }
+    return NativeVideoDownloadManager.pauseDownload(id);
+  },
+  async resume(id: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloads', 'resume'));
+    }
+    return NativeVideoDownloadManager.resumeDownload(id);
+  },
+  async remove(id: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloads', 'remove'));
+    }
+    return NativeVideoDownloadManager.removeDownload(id);
+  },
+  async get(id: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloads', 'get'));
+    }
+    return NativeVideoDownloadManager.getDownload(id);
+  },
+  async getAll() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloads', 'getAll'));
+    }
+    return NativeVideoDownloadManager.getDownloads();
+  },
+  configure(config: VideoDownloadsConfig) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloads', 'configure'));
+    }
+    NativeVideoDownloadManager.configureDownloads(config);
+  },
+  addListener(
+    eventName: 'onDownloadProgress' | 'onDownloadStateChanged',
+    listener: (download: VideoDownload) => void,
+  ): EmitterSubscription {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloads', 'addListener'));
+    }
+    return getEventEmitter().addListener(eventName, listener);
+  },
+};
@@ -0,0 +1,57 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {Drm, ReactVideoSourceProperties} from './types';
+import {generateHeaderForNative} from './utils';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+const toNativeDrmSource = (
+  source: ReactVideoSourceProperties,
+  drm: Drm | undefined,
+  methodName: string,
+) => {
+  const selectedDrm = source.drm || drm;
+  if (typeof source.uri !== 'string' || !selectedDrm) {
+    throw new Error(`VideoDrm.${methodName} needs a network source with drm`);
+  }
+  return {
+    uri: source.uri,
+    type: source.type || '',
+    requestHeaders: generateHeaderForNative(source.headers),
+    drm: {
+      type: selectedDrm.type,
+      licenseServer: selectedDrm.licenseServer,
+      headers: generateHeaderForNative(selectedDrm.headers),
+      contentId: selectedDrm.contentId,
+      multiDrm: selectedDrm.multiDrm,
+      offlineLicense: selectedDrm.offlineLicense,
+    },
+  };
+};
+
+export const VideoDrm = {
+  async prepare(source: ReactVideoSourceProperties, drm?: Drm) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDrm', 'prepare'));
+    }
+    return NativeVideoManager.prepareDrm(
+      toNativeDrmSource(source, drm, 'prepare'),
+    );
+  },
+  async removeOfflineLicense(source: ReactVideoSourceProperties, drm?: Drm) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDrm', 'removeOfflineLicense'));
+    }
+    return NativeVideoManager.removeOfflineLicense(
+      toNativeDrmSource(source, drm, 'removeOfflineLicense'),
+    );
+  },
+  async clearOfflineLicenses() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDrm', 'clearOfflineLicenses'));
+    }
+    return NativeVideoManager.clearOfflineLicenses();
+  },
+};
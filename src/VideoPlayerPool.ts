@@ -0,0 +1,34 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {VideoPlayerPoolConfig} from './types';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+export const VideoPlayerPool = {
+  configure(config: VideoPlayerPoolConfig) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoPlayerPool', 'configure'));
+    }
+    NativeVideoManager.configurePlayerPool(config);
+  },
+  async getStats() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoPlayerPool', 'getStats'));
+    }
+    return NativeVideoManager.getPlayerPoolStats();
+  },
+  async getExecutorStats() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoPlayerPool', 'getExecutorStats'));
+    }
+    return NativeVideoManager.getExecutorStats();
+  },
+  async getEventStats() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoPlayerPool', 'getEventStats'));
+    }
+    return NativeVideoManager.getEventStats();
+  },
+};
@@ -1,5 +1,9 @@
 import Video from './Video';
 export {VideoDecoderProperties} from './VideoDecoderProperties';
+export {VideoCache} from './VideoCache';
+export {VideoPlayerPool} from './VideoPlayerPool';
+export {VideoDownloads} from './VideoDownloads';
+export {VideoDrm} from './VideoDrm';
 export * from './types';
 export {Video};
 export default Video;
@@ -0,0 +1,28 @@
+import {NativeModules} from 'react-native';
+import type {
+  Int32,
+  UnsafeObject,
+} from 'react-native/Libraries/Types/CodegenTypes';
+import type {
+  VideoDownload,
+  VideoDownloadOptions,
+  VideoDownloadsConfig,
+} from '../types/video';
+
+// @TODO rename to "Spec" when applying new arch
+export interface VideoDownloadManagerType {
+  download: (
+    source: UnsafeObject,
+    options?: VideoDownloadOptions,
+  ) => Promise<string>;
+  pauseDownload: (id: string) => Promise<void>;
+  resumeDownload: (id: string) => Promise<void>;
+  removeDownload: (id: string) => Promise<void>;
+  getDownload: (id: string) => Promise<VideoDownload | null>;
+  getDownloads: () => Promise<VideoDownload[]>;
+  configureDownloads: (config: VideoDownloadsConfig) => void;
+  addListener: (eventName: string) => void;
+  removeListeners: (count: Int32) => void;
+}
+
+export default NativeModules.VideoDownloadManager as VideoDownloadManagerType;
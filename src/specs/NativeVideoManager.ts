@@ -5,6 +5,17 @@ import type {
   UnsafeObject,
 } from 'react-native/Libraries/Types/CodegenTypes';
 import type {VideoSaveData} from '../types/video-ref';
+import type {
+  VideoCacheEvictionConfig,
+  VideoCacheState,
+  VideoCacheStats,
+  VideoEventStats,
+  VideoExecutorStats,
+  VideoPlayerPoolConfig,
+  VideoPlayerPoolStats,
+  VideoPreloadOptions,
+  VideoPreloadStatus,
+} from '../types/video';
 
 // @TODO rename to "Spec" when applying new arch
 export interface VideoManagerType {
@@ -27,6 +38,31 @@ export interface VideoManagerType {
   exitPictureInPictureCmd: (reactTag: number) => Promise<void>;
   save: (reactTag: Int32, option: UnsafeObject) => Promise<VideoSaveData>;
   getCurrentPosition: (reactTag: Int32) => Promise<Int32>;
+  getBandwidthStats: (reactTag: Int32) => Promise<UnsafeObject | null>;
+  getPlaybackSnapshot: (reactTag: Int32) => UnsafeObject | null;
+  getCacheState: () => Promise<VideoCacheState[]>;
+  getCacheStats: () => Promise<VideoCacheStats>;
+  resizeCache: (namespace: string | null, cacheSizeMB: Int32) => Promise<boolean>;
+  releaseCache: (namespace: string | null) => Promise<boolean>;
+  pinCache: (source: UnsafeObject, bytes: Float) => Promise<boolean>;
+  unpinCache: (source: UnsafeObject) => Promise<boolean>;
+  configureCacheEviction: (
+    namespace: string | null,
+    config: VideoCacheEvictionConfig,
+  ) => Promise<boolean>;
+  prepareDrm: (source: UnsafeObject) => Promise<boolean>;
+  removeOfflineLicense: (source: UnsafeObject) => Promise<void>;
+  clearOfflineLicenses: () => Promise<void>;
+  preload: (
+    source: UnsafeObject,
+    options?: VideoPreloadOptions,
+  ) => Promise<string>;
+  getPreloadStatus: (id: string) => Promise<VideoPreloadStatus>;
+  cancelPreload: (id: string) => Promise<boolean>;
+  configurePlayerPool: (config: VideoPlayerPoolConfig) => void;
+  getPlayerPoolStats: () => Promise<VideoPlayerPoolStats>;
+  getExecutorStats: () => Promise<VideoExecutorStats>;
+  getEventStats: () => Promise<VideoEventStats>;
 }
 
 export default NativeModules.VideoManager as VideoManagerType;
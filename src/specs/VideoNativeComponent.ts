@@ -71,6 +71,7 @@ type Drm = Readonly<{
   base64Certificate?: boolean; // ios default: false
   useExternalGetLicense?: boolean; // ios
   multiDrm?: WithDefault<boolean, false>; // android
+  offlineLicense?: WithDefault<boolean, false>; // android
   localSourceEncryptionKeyScheme?: string; // ios
 }>;
 
@@ -133,6 +134,20 @@ type BufferConfig = Readonly<{
   minBackBufferMemoryReservePercent?: Float;
   minBufferMemoryReservePercent?: Float;
   cacheSizeMB?: Float;
+  cacheNamespace?: string; // Android
+  manifestCacheTtlMs?: Float; // Android
+  preferCachedTracks?: boolean; // Android
+  cachedTrackBitrateTolerance?: Float; // Android
+  cachePriority?: string; // Android
+  abrMode?: string; // Android
+  abrLowBufferMs?: Float; // Android
+  abrHighBufferMs?: Float; // Android
+  startupMode?: string; // Android
+  fastStartDurationMs?: Float; // Android
+  cacheKey?: Readonly<{
+    stripQueryParams?: ReadonlyArray<string>;
+    regex?: string;
+  }>; // Android
   live?: BufferConfigLive;
 }>;
 
@@ -198,6 +213,49 @@ export type OnBandwidthUpdateData = Readonly<{
   width?: Float;
   height?: Float;
   trackId?: Int32;
+  windowMs?: Float;
+  sampleCount?: Int32;
+  meanThroughput?: Float;
+  p50Throughput?: Float;
+  p95Throughput?: Float;
+  minThroughput?: Float;
+  maxThroughput?: Float;
+}>;
+
+export type OnCacheStatsData = Readonly<{
+  namespace: string;
+  cacheReadBytes: Double;
+  upstreamReadBytes: Double;
+  hitRatio: Double;
+  ignoredOnError: Double;
+  ignoredUnsetLength: Double;
+  evictions: Double;
+  evictedBytes: Double;
+  usedBytes: Double;
+  maxBytes: Double;
+}>;
+
+export type OnStartupMetricsData = Readonly<{
+  uri?: string;
+  timeToFirstFrameMs: Double;
+  phases: Readonly<{
+    setSrc: Double;
+    initializeDispatch?: Double;
+    drmSessionStart?: Double;
+    drmSessionEnd?: Double;
+    buildMediaSourceStart?: Double;
+    buildMediaSourceEnd?: Double;
+    prepare?: Double;
+    firstBuffering?: Double;
+    ready?: Double;
+    firstFrame?: Double;
+    videoLoad?: Double;
+  }>;
+}>;
+
+export type OnMemoryPressureData = Readonly<{
+  level: string;
+  previousLevel: string;
 }>;
 
 export type OnSeekData = Readonly<{
@@ -358,6 +416,8 @@ export interface VideoNativeProps extends ViewProps {
   fullscreenAutorotate?: boolean;
   fullscreenOrientation?: WithDefault<string, 'all'>;
   progressUpdateInterval?: Float;
+  progressUpdateThreshold?: Float; // Android
+  bandwidthReportInterval?: Float; // Android
   restoreUserInterfaceForPIPStopCompletionHandler?: boolean;
   debug?: DebugConfig;
   showNotificationControls?: WithDefault<boolean, false>; // Android, iOS
@@ -366,6 +426,7 @@ export interface VideoNativeProps extends ViewProps {
   focusable?: boolean; // Android
   hideShutterView?: boolean; //	Android
   reportBandwidth?: boolean; //Android
+  cacheStatsUpdateInterval?: Float; // Android
   subtitleStyle?: SubtitleStyle; // android
   viewType?: Int32; // Android
   bufferingStrategy?: BufferingStrategyType; // Android
@@ -402,6 +463,9 @@ export interface VideoNativeProps extends ViewProps {
   onTextTracks?: DirectEventHandler<OnTextTracksData>; // android
   onTextTrackDataChanged?: DirectEventHandler<OnTextTrackDataChangedData>; // iOS
   onVideoTracks?: DirectEventHandler<OnVideoTracksData>; // android
+  onCacheStats?: DirectEventHandler<OnCacheStatsData>; // android
+  onStartupMetrics?: DirectEventHandler<OnStartupMetricsData>; // android
+  onMemoryPressure?: DirectEventHandler<OnMemoryPressureData>; // android
 }
 
 type NativeVideoComponentType = HostComponent<VideoNativeProps>;
@@ -4,14 +4,17 @@ import type {
   OnAudioTracksData,
   OnBandwidthUpdateData,
   OnBufferData,
+  OnCacheStatsData,
   OnControlsVisibilityChange,
   OnExternalPlaybackChangeData,
   OnLoadStartData,
+  OnMemoryPressureData,
   OnPictureInPictureStatusChangedData,
   OnPlaybackRateChangeData,
   OnPlaybackStateChangedData,
   OnProgressData,
   OnSeekData,
+  OnStartupMetricsData,
   OnTextTrackDataChangedData,
   OnTimedMetadataData,
   OnVideoAspectRatioData,
@@ -240,6 +243,7 @@ export interface ReactVideoEvents {
   onIdle?: () => void; // Android
   onBandwidthUpdate?: (e: OnBandwidthUpdateData) => void; //Android
   onBuffer?: (e: OnBufferData) => void; //Android, iOS
+  onCacheStats?: (e: OnCacheStatsData) => void; //Android
   onControlsVisibilityChange?: (e: OnControlsVisibilityChange) => void; // Android, iOS
   onEnd?: () => void; //All
   onError?: (e: OnVideoErrorData) => void; //Android, iOS
@@ -260,6 +264,8 @@ export interface ReactVideoEvents {
   onReceiveAdEvent?: (e: OnReceiveAdEventData) => void; //Android, iOS
   onRestoreUserInterfaceForPictureInPictureStop?: () => void; //iOS
   onSeek?: (e: OnSeekData) => void; //Android, iOS, Windows UWP
+  onStartupMetrics?: (e: OnStartupMetricsData) => void; //Android
+  onMemoryPressure?: (e: OnMemoryPressureData) => void; //Android
   onPlaybackStateChanged?: (e: OnPlaybackStateChangedData) => void; // Android, iOS
   onTimedMetadata?: (e: OnTimedMetadataData) => void; //Android, iOS
   onAudioTracks?: (e: OnAudioTracksData) => void; // Android
@@ -1,5 +1,6 @@
 import type {RefObject} from 'react';
-import {ReactVideoSource} from './video';
+import {ReactVideoSource, VideoPlaybackSnapshot} from './video';
+import type {OnBandwidthUpdateData} from './events';
 
 export type VideoSaveData = {
   uri: string;
@@ -17,6 +18,8 @@ export interface VideoRef {
   save: (options: object) => Promise<VideoSaveData> | void;
   setVolume: (volume: number) => void;
   getCurrentPosition: () => Promise<number>;
+  getBandwidthStats: () => Promise<OnBandwidthUpdateData | null>; // Android
+  getPlaybackSnapshot: () => VideoPlaybackSnapshot | null; // Android
   setFullScreen: (fullScreen: boolean) => void;
   setSource: (source?: ReactVideoSource) => void;
   enterPictureInPicture: () => void;
@@ -90,6 +90,7 @@ export type Drm = Readonly<{
   certificateUrl?: string; // ios
   base64Certificate?: boolean; // ios default: false
   multiDrm?: boolean; // android
+  offlineLicense?: boolean; // android
   localSourceEncryptionKeyScheme?: string; // ios
   /* eslint-disable @typescript-eslint/no-unused-vars */
   getLicense?: (
@@ -126,6 +127,7 @@ export enum BufferingStrategyType {
   DEFAULT = 'Default',
   DISABLE_BUFFERING = 'DisableBuffering',
   DEPENDING_ON_MEMORY = 'DependingOnMemory',
+  DEPENDING_ON_NETWORK = 'DependingOnNetwork',
 }
 
 export type BufferConfigLive = {
@@ -147,9 +149,171 @@ export type BufferConfig = {
   minBufferMemoryReservePercent?: number;
   initialBitrate?: number; // Android
   cacheSizeMB?: number;
+  cacheNamespace?: string; // Android
+  cacheKey?: BufferConfigCacheKey; // Android
+  manifestCacheTtlMs?: number; // Android
+  preferCachedTracks?: boolean; // Android
+  cachedTrackBitrateTolerance?: number; // Android
+  cachePriority?: VideoCachePriority; // Android
+  abrMode?: VideoAbrMode; // Android
+  abrLowBufferMs?: number; // Android
+  abrHighBufferMs?: number; // Android
+  startupMode?: VideoStartupMode; // Android
+  fastStartDurationMs?: number; // Android
   live?: BufferConfigLive;
 };
 
+export type VideoAbrMode = 'throughput' | 'buffer' | 'hybrid';
+
+export type VideoStartupMode = 'default' | 'fast';
+
+export type BufferConfigCacheKey = {
+  stripQueryParams?: string[];
+  regex?: string;
+};
+
+export type VideoCachePriority = 'low' | 'normal' | 'high';
+
+export type VideoCacheEvictionConfig = {
+  low?: number;
+  normal?: number;
+  high?: number;
+  pinned?: number;
+};
+
+export type VideoPreloadOptions = {
+  bytes?: number;
+  durationMs?: number;
+  priority?: number;
+  pin?: boolean;
+  cachePriority?: VideoCachePriority;
+};
+
+export type VideoPreloadStatus = {
+  id: string;
+  status: 'pending' | 'running' | 'completed' | 'cancelled' | 'failed';
+  bytesCached: number;
+  bytesTarget: number;
+  error?: string;
+};
+
+export type VideoDownloadOptions = {
+  id?: string;
+  maxVideoBitrate?: number;
+  maxVideoHeight?: number;
+  audioLanguages?: string[];
+  textLanguages?: string[];
+};
+
+export type VideoDownload = {
+  id: string;
+  uri: string;
+  state:
+    | 'queued'
+    | 'stopped'
+    | 'downloading'
+    | 'completed'
+    | 'failed'
+    | 'removing'
+    | 'restarting'
+    | 'removed';
+  bytesDownloaded: number;
+  contentLength?: number;
+  percentDownloaded?: number;
+  paused: boolean;
+  failureReason?: number;
+};
+
+export type VideoDownloadsConfig = {
+  maxParallelDownloads?: number;
+};
+
+export type VideoPlayerPoolConfig = {
+  maxSize?: number;
+  trimOnMemoryPressure?: boolean;
+};
+
+export type VideoPlayerPoolStats = {
+  size: number;
+  maxSize: number;
+  hits: number;
+  misses: number;
+  evictions: number;
+};
+
+export type VideoExecutorStats = {
+  queued: number;
+  running: number;
+  maxThreads: number;
+  completed: number;
+  cancelled: number;
+  rejected: number;
+  averageWaitMs: number;
+  maxWaitMs: number;
+  averageRunMs: number;
+};
+
+export type VideoPlaybackSnapshot = {
+  currentTime: number;
+  playableDuration: number;
+  duration?: number;
+  state: 'idle' | 'buffering' | 'ready' | 'ended';
+  isPlaying: boolean;
+  rate: number;
+  bitrate?: number;
+  publishedAgoMs: number;
+};
+
+export type VideoEventStats = {
+  dispatched: number;
+  coalesced: number;
+  dropped: number;
+  budgetPerSecond: number;
+};
+
+export type VideoCacheState = {
+  namespace: string;
+  refCount: number;
+  maxBytes: number;
+  usedBytes: number;
+  releasePending: boolean;
+  folder: string;
+  classBytes: {
+    low: number;
+    normal: number;
+    high: number;
+    pinned: number;
+  };
+};
+
+export type VideoCacheNamespaceStats = {
+  namespace: string;
+  cacheReadBytes: number;
+  upstreamReadBytes: number;
+  hitRatio: number;
+  ignoredOnError: number;
+  ignoredUnsetLength: number;
+  evictions: number;
+  evictedBytes: number;
+  usedBytes: number;
+  maxBytes: number;
+};
+
+export type VideoCacheStats = {
+  namespaces: VideoCacheNamespaceStats[];
+  manifestCache: {
+    hits: number;
+    misses: number;
+    size: number;
+    bytes: number;
+  };
+  dataSourceFactories: {
+    builds: number;
+    reuses: number;
+    size: number;
+  };
+};
+
 export enum SelectedTrackType {
   SYSTEM = 'system',
   DISABLED = 'disabled',
@@ -325,10 +489,13 @@ export interface ReactVideoProps extends ReactVideoEvents, ViewProps {
   preferredForwardBufferDuration?: number; // iOS
   preventsDisplaySleepDuringVideoPlayback?: boolean;
   progressUpdateInterval?: number;
+  progressUpdateThreshold?: number; // Android
   rate?: number;
   renderLoader?: ReactNode | ((arg0: ReactVideoRenderLoaderProps) => ReactNode);
   repeat?: boolean;
   reportBandwidth?: boolean; //Android
+  bandwidthReportInterval?: number; //Android
+  cacheStatsUpdateInterval?: number; //Android
   resizeMode?: EnumValues<VideoResizeMode>;
   showNotificationControls?: boolean; // Android, iOS
   selectedAudioTrack?: SelectedTrack;